@@ -0,0 +1,120 @@
+package com.example.demo.admission;
+
+import com.example.demo.support.DatabaseTime;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Applies per-group concurrency limits to incoming requests and fails fast with 429 when a limit is hit.
+ * Requests that match no group (point lookups, writes) are never limited.
+ *
+ * Adaptive limits see the request's {@link DatabaseTime} when it made measured database calls, and the
+ * whole request time otherwise.
+ */
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+    
+    private static final String LIMITER_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".limiter";
+    private static final String START_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".start";
+    
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+    private final List<Route> routes = new ArrayList<>();
+    private final List<ConcurrencyLimiter> limiters = new ArrayList<>();
+    
+    public AdmissionControlInterceptor(AdmissionProperties properties) {
+        for (Map.Entry<String, AdmissionProperties.Group> entry : properties.getGroups().entrySet()) {
+            AdmissionProperties.Group group = entry.getValue();
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(
+                entry.getKey(),
+                group.isAdaptive() ? group.getMinConcurrent() : group.getMaxConcurrent(),
+                group.getMaxConcurrent(),
+                group.getMaxQueue(),
+                group.getMaxWaitMs(),
+                group.isAdaptive(),
+                group.getTargetLatencyMs());
+            limiters.add(limiter);
+            
+            for (String pattern : group.getPatterns()) {
+                String[] parts = pattern.trim().split("\\s+", 2);
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Admission pattern must be 'METHOD /path': " + pattern);
+                }
+                routes.add(new Route(parts[0].toUpperCase(), parts[1], limiter));
+            }
+        }
+    }
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        ConcurrencyLimiter limiter = findLimiter(request);
+        if (limiter == null) {
+            return true;
+        }
+        
+        boolean admitted;
+        try {
+            admitted = limiter.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        
+        if (!admitted) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", "1");
+            return false;
+        }
+        
+        request.setAttribute(LIMITER_ATTRIBUTE, limiter);
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+    
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ConcurrencyLimiter limiter = (ConcurrencyLimiter) request.getAttribute(LIMITER_ATTRIBUTE);
+        if (limiter != null) {
+            request.removeAttribute(LIMITER_ATTRIBUTE);
+            Long databaseNanos = DatabaseTime.of(request);
+            limiter.release(databaseNanos != null
+                ? databaseNanos
+                : System.nanoTime() - (Long) request.getAttribute(START_ATTRIBUTE));
+        }
+    }
+    
+    public List<ConcurrencyLimiter.Stats> getStats() {
+        return limiters.stream().map(ConcurrencyLimiter::getStats).collect(Collectors.toList());
+    }
+    
+    private ConcurrencyLimiter findLimiter(HttpServletRequest request) {
+        String method = request.getMethod();
+        String path = urlPathHelper.getPathWithinApplication(request);
+        for (Route route : routes) {
+            if (route.method.equals(method) && pathMatcher.match(route.pattern, path)) {
+                return route.limiter;
+            }
+        }
+        return null;
+    }
+    
+    private static class Route {
+        private final String method;
+        private final String pattern;
+        private final ConcurrencyLimiter limiter;
+        
+        Route(String method, String pattern, ConcurrencyLimiter limiter) {
+            this.method = method;
+            this.pattern = pattern;
+            this.limiter = limiter;
+        }
+    }
+}
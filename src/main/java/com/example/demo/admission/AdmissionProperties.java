@@ -0,0 +1,59 @@
+package com.example.demo.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Endpoint groups and their concurrency limits, bound from app.admission.*
+ */
+@ConfigurationProperties(prefix = "app.admission")
+public class AdmissionProperties {
+    
+    private boolean enabled = true;
+    
+    // Evaluated in declaration order; the first group whose pattern matches a request applies
+    private Map<String, Group> groups = new LinkedHashMap<>();
+    
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    
+    public Map<String, Group> getGroups() { return groups; }
+    public void setGroups(Map<String, Group> groups) { this.groups = groups; }
+    
+    public static class Group {
+        // "METHOD /path/pattern" entries, e.g. "GET /api/people"
+        private List<String> patterns = new ArrayList<>();
+        private int maxConcurrent = 4;
+        private int minConcurrent = 1;
+        private int maxQueue = 0;
+        private long maxWaitMs = 0;
+        private boolean adaptive = false;
+        private long targetLatencyMs = 200;
+        
+        // Getters and setters
+        public List<String> getPatterns() { return patterns; }
+        public void setPatterns(List<String> patterns) { this.patterns = patterns; }
+        
+        public int getMaxConcurrent() { return maxConcurrent; }
+        public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+        
+        public int getMinConcurrent() { return minConcurrent; }
+        public void setMinConcurrent(int minConcurrent) { this.minConcurrent = minConcurrent; }
+        
+        public int getMaxQueue() { return maxQueue; }
+        public void setMaxQueue(int maxQueue) { this.maxQueue = maxQueue; }
+        
+        public long getMaxWaitMs() { return maxWaitMs; }
+        public void setMaxWaitMs(long maxWaitMs) { this.maxWaitMs = maxWaitMs; }
+        
+        public boolean isAdaptive() { return adaptive; }
+        public void setAdaptive(boolean adaptive) { this.adaptive = adaptive; }
+        
+        public long getTargetLatencyMs() { return targetLatencyMs; }
+        public void setTargetLatencyMs(long targetLatencyMs) { this.targetLatencyMs = targetLatencyMs; }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.demo.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit with a bounded wait queue for one group of endpoints.
+ *
+ * Requests beyond the limit wait up to maxWait in a queue of at most maxQueue entries and are
+ * rejected otherwise. In adaptive mode the limit moves between minConcurrent and maxConcurrent:
+ * it shrinks when the smoothed latency reported on release exceeds the target and grows back by one when
+ * latency is within the target.
+ */
+public class ConcurrencyLimiter {
+    
+    private static final double LATENCY_SMOOTHING = 0.2;
+    private static final double DECREASE_FACTOR = 0.75;
+    
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final boolean adaptive;
+    private final long targetLatencyNanos;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+    
+    private int limit;
+    private int inFlight;
+    private int waiting;
+    private long rejected;
+    private int completionsSinceAdjustment;
+    private double smoothedLatencyNanos;
+    
+    public ConcurrencyLimiter(String name, int minLimit, int maxLimit, int maxQueue, long maxWaitMs,
+                              boolean adaptive, long targetLatencyMs) {
+        if (maxLimit < 1 || minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid concurrency limits for " + name + ": " + minLimit + ".." + maxLimit);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = Math.max(0, maxQueue);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMs));
+        this.adaptive = adaptive;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+        this.limit = maxLimit;
+    }
+    
+    /**
+     * Take a permit, waiting in the bounded queue if the limit is reached; false means the request must be rejected
+     */
+    public boolean tryAcquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < limit) {
+                inFlight++;
+                return true;
+            }
+            if (waiting >= maxQueue || maxWaitNanos == 0) {
+                rejected++;
+                return false;
+            }
+            
+            waiting++;
+            try {
+                long remainingNanos = maxWaitNanos;
+                while (inFlight >= limit) {
+                    if (remainingNanos <= 0) {
+                        rejected++;
+                        return false;
+                    }
+                    remainingNanos = permitReleased.awaitNanos(remainingNanos);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Return a permit and record the request's latency (its database time when the caller measured it)
+     */
+    public void release(long latencyNanos) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (adaptive && adjustLimit(latencyNanos)) {
+                permitReleased.signalAll();
+            } else {
+                permitReleased.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Re-evaluated once per "limit" completions so a single slow request does not collapse the limit
+    private boolean adjustLimit(long latencyNanos) {
+        smoothedLatencyNanos = smoothedLatencyNanos == 0
+            ? latencyNanos
+            : smoothedLatencyNanos + LATENCY_SMOOTHING * (latencyNanos - smoothedLatencyNanos);
+        
+        if (++completionsSinceAdjustment < limit) {
+            return false;
+        }
+        completionsSinceAdjustment = 0;
+        
+        if (smoothedLatencyNanos > targetLatencyNanos) {
+            limit = Math.max(minLimit, (int) (limit * DECREASE_FACTOR));
+            return false;
+        }
+        if (limit < maxLimit) {
+            limit++;
+            return true;
+        }
+        return false;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public Stats getStats() {
+        lock.lock();
+        try {
+            return new Stats(name, limit, maxLimit, inFlight, waiting, rejected,
+                TimeUnit.NANOSECONDS.toMillis((long) smoothedLatencyNanos));
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Point-in-time view of a limiter
+    public static class Stats {
+        private final String name;
+        private final int limit;
+        private final int maxLimit;
+        private final int inFlight;
+        private final int waiting;
+        private final long rejected;
+        private final long smoothedLatencyMs;
+        
+        public Stats(String name, int limit, int maxLimit, int inFlight, int waiting, long rejected, long smoothedLatencyMs) {
+            this.name = name;
+            this.limit = limit;
+            this.maxLimit = maxLimit;
+            this.inFlight = inFlight;
+            this.waiting = waiting;
+            this.rejected = rejected;
+            this.smoothedLatencyMs = smoothedLatencyMs;
+        }
+        
+        // Getters
+        public String getName() { return name; }
+        public int getLimit() { return limit; }
+        public int getMaxLimit() { return maxLimit; }
+        public int getInFlight() { return inFlight; }
+        public int getWaiting() { return waiting; }
+        public long getRejected() { return rejected; }
+        public long getSmoothedLatencyMs() { return smoothedLatencyMs; }
+    }
+}
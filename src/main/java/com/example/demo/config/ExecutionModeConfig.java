@@ -0,0 +1,63 @@
+package com.example.demo.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Request execution mode for the embedded Tomcat.
+ *
+ * app.execution.mode=platform (default) keeps the bounded Tomcat worker pool.
+ * app.execution.mode=virtual runs every request on its own virtual thread, so
+ * concurrency is bounded by the connection pools rather than by worker threads.
+ */
+@Configuration
+public class ExecutionModeConfig implements DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionModeConfig.class);
+    
+    private volatile ExecutorService virtualThreadExecutor;
+    
+    /**
+     * Replace the Tomcat worker pool with a virtual-thread-per-request executor
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.execution.mode", havingValue = "virtual")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        virtualThreadExecutor = executor;
+        logger.info("Serving requests on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+    
+    /**
+     * Tomcat has already stopped when the context destroys its beans; this only releases the executor.
+     * Not exposed as a bean: an Executor bean would switch off Spring Boot's applicationTaskExecutor
+     */
+    @Override
+    public void destroy() {
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.shutdown();
+        }
+    }
+    
+    /**
+     * Virtual threads are final in JDK 21; the build targets 17, so the factory is looked up at runtime
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(
+                "app.execution.mode=virtual requires JDK 21 or newer (running on " +
+                System.getProperty("java.version") + ")", e);
+        }
+    }
+}
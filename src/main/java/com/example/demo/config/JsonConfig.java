@@ -0,0 +1,56 @@
+package com.example.demo.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Optimized serialization for bulk readers.
+ *
+ * app.json.optimized registers Blackbird, which replaces reflective getter calls with generated
+ * lambdas. app.json.binary-formats adds Smile (application/x-jackson-smile) and CBOR (application/cbor)
+ * for clients that ask for them in Accept; both use the same ObjectMapper settings as JSON.
+ */
+@Configuration
+public class JsonConfig implements WebMvcConfigurer {
+    
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+    private final boolean binaryFormats;
+    
+    public JsonConfig(ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder,
+                      @Value("${app.json.binary-formats:false}") boolean binaryFormats) {
+        this.objectMapperBuilder = objectMapperBuilder;
+        this.binaryFormats = binaryFormats;
+    }
+    
+    @Bean
+    @ConditionalOnProperty(name = "app.json.optimized", havingValue = "true")
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+    
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        if (!binaryFormats) {
+            return;
+        }
+        // Each call to the (prototype) builder returns a fresh instance with the Boot customizations applied
+        converters.add(new MappingJackson2SmileHttpMessageConverter(
+            objectMapperBuilder.getObject().factory(new SmileFactory()).build()));
+        converters.add(new MappingJackson2CborHttpMessageConverter(
+            objectMapperBuilder.getObject().factory(new CBORFactory()).build()));
+    }
+}
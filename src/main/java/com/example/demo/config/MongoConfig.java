@@ -0,0 +1,28 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class MongoConfig {
+    
+    /**
+     * Size the MongoDB driver connection pool from app.mongo.pool.* (driver defaults otherwise)
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer connectionPoolCustomizer(
+            @Value("${app.mongo.pool.max-size:100}") int maxSize,
+            @Value("${app.mongo.pool.min-size:0}") int minSize,
+            @Value("${app.mongo.pool.max-wait-ms:120000}") long maxWaitMs,
+            @Value("${app.mongo.pool.max-connection-idle-ms:0}") long maxConnectionIdleMs) {
+        return builder -> builder.applyToConnectionPoolSettings(pool -> pool
+            .maxSize(maxSize)
+            .minSize(minSize)
+            .maxWaitTime(maxWaitMs, TimeUnit.MILLISECONDS)
+            .maxConnectionIdleTime(maxConnectionIdleMs, TimeUnit.MILLISECONDS));
+    }
+}
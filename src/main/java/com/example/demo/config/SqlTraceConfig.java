@@ -0,0 +1,21 @@
+package com.example.demo.config;
+
+import com.example.demo.support.SqlTraceSampler;
+import com.example.demo.support.SqlTraceStatementInspector;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SqlTraceConfig {
+    
+    /**
+     * Route every statement through the sampling inspector; unsampled requests pay one ThreadLocal read
+     */
+    @Bean
+    public HibernatePropertiesCustomizer sqlTraceCustomizer(SqlTraceSampler sqlTraceSampler) {
+        return hibernateProperties -> hibernateProperties.put(
+            AvailableSettings.STATEMENT_INSPECTOR, new SqlTraceStatementInspector(sqlTraceSampler));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.controller;
+
+import com.example.demo.admission.AdmissionControlInterceptor;
+import com.example.demo.admission.ConcurrencyLimiter;
+import com.example.demo.service.OutboxProjector;
+import com.example.demo.support.SqlTraceSampler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collections;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin(origins = "*")
+public class AdminController {
+    
+    private final SqlTraceSampler sqlTraceSampler;
+    private final ObjectProvider<AdmissionControlInterceptor> admissionControlInterceptor;
+    private final ObjectProvider<OutboxProjector> outboxProjector;
+    
+    @Autowired
+    public AdminController(SqlTraceSampler sqlTraceSampler,
+                           ObjectProvider<AdmissionControlInterceptor> admissionControlInterceptor,
+                           ObjectProvider<OutboxProjector> outboxProjector) {
+        this.sqlTraceSampler = sqlTraceSampler;
+        this.admissionControlInterceptor = admissionControlInterceptor;
+        this.outboxProjector = outboxProjector;
+    }
+    
+    /**
+     * Get the current SQL trace sample rate
+     */
+    @GetMapping("/sql-trace")
+    public ResponseEntity<SqlTraceSettings> getSqlTrace() {
+        return ResponseEntity.ok(new SqlTraceSettings(sqlTraceSampler.getSampleRate()));
+    }
+    
+    /**
+     * Change the fraction of requests whose SQL is traced (0.0 disables tracing)
+     */
+    @PutMapping("/sql-trace")
+    public ResponseEntity<SqlTraceSettings> updateSqlTrace(@RequestParam double sampleRate) {
+        try {
+            sqlTraceSampler.setSampleRate(sampleRate);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(new SqlTraceSettings(sqlTraceSampler.getSampleRate()));
+    }
+    
+    /**
+     * Get current limits, in-flight and queued requests and rejection counts per admission group
+     */
+    @GetMapping("/admission")
+    public ResponseEntity<List<ConcurrencyLimiter.Stats>> getAdmissionStats() {
+        AdmissionControlInterceptor interceptor = admissionControlInterceptor.getIfAvailable();
+        return ResponseEntity.ok(interceptor != null ? interceptor.getStats() : Collections.emptyList());
+    }
+    
+    /**
+     * Get pending and stuck outbox events; 404 when the outbox projector is disabled
+     */
+    @GetMapping("/outbox")
+    public ResponseEntity<OutboxProjector.Stats> getOutboxStats() {
+        OutboxProjector projector = outboxProjector.getIfAvailable();
+        return projector != null ? ResponseEntity.ok(projector.getStats()) : ResponseEntity.notFound().build();
+    }
+    
+    // Inner class for SQL trace settings
+    public static class SqlTraceSettings {
+        private double sampleRate;
+        
+        public SqlTraceSettings(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+        
+        // Getters and setters
+        public double getSampleRate() { return sampleRate; }
+        public void setSampleRate(double sampleRate) { this.sampleRate = sampleRate; }
+    }
+}
@@ -1,20 +1,39 @@
 package com.example.demo.controller;
 
+import com.example.demo.entity.MigrationDeadLetter;
+import com.example.demo.service.ConsistencyScrubber;
+import com.example.demo.service.MigrationQuarantine;
 import com.example.demo.service.MigrationService;
+import com.example.demo.service.MigrationThrottle;
+import com.example.demo.service.PersonSnapshotService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/migration")
 @CrossOrigin(origins = "*")
 public class MigrationController {
     
     private final MigrationService migrationService;
+    private final PersonSnapshotService personSnapshotService;
+    private final MigrationThrottle migrationThrottle;
+    private final MigrationQuarantine migrationQuarantine;
+    private final ObjectProvider<ConsistencyScrubber> consistencyScrubber;
     
     @Autowired
-    public MigrationController(MigrationService migrationService) {
+    public MigrationController(MigrationService migrationService, PersonSnapshotService personSnapshotService,
+                               MigrationThrottle migrationThrottle, MigrationQuarantine migrationQuarantine,
+                               ObjectProvider<ConsistencyScrubber> consistencyScrubber) {
         this.migrationService = migrationService;
+        this.personSnapshotService = personSnapshotService;
+        this.migrationThrottle = migrationThrottle;
+        this.migrationQuarantine = migrationQuarantine;
+        this.consistencyScrubber = consistencyScrubber;
     }
     
     /**
@@ -73,6 +92,103 @@ public class MigrationController {
         }
     }
     
+    /**
+     * Export PostgreSQL people into a snapshot file (resumes a partial export unless restart=true)
+     */
+    @PostMapping("/snapshot/export")
+    public ResponseEntity<PersonSnapshotService.SnapshotResult> exportSnapshot(
+            @RequestParam String file,
+            @RequestParam(defaultValue = "false") boolean restart) {
+        PersonSnapshotService.SnapshotResult result = personSnapshotService.exportSnapshot(file, restart);
+        
+        if (result.isSuccess()) {
+            return ResponseEntity.ok(result);
+        } else {
+            return ResponseEntity.badRequest().body(result);
+        }
+    }
+    
+    /**
+     * Import a snapshot file into MongoDB (resumes an interrupted import unless restart=true)
+     */
+    @PostMapping("/snapshot/import")
+    public ResponseEntity<PersonSnapshotService.SnapshotResult> importSnapshot(
+            @RequestParam String file,
+            @RequestParam(defaultValue = "false") boolean restart) {
+        PersonSnapshotService.SnapshotResult result = personSnapshotService.importSnapshot(file, restart);
+        
+        if (result.isSuccess()) {
+            return ResponseEntity.ok(result);
+        } else {
+            return ResponseEntity.badRequest().body(result);
+        }
+    }
+    
+    /**
+     * Get quarantined row counts per failure reason and the first quarantined rows
+     */
+    @GetMapping("/quarantine")
+    public ResponseEntity<QuarantineStatus> getQuarantine(@RequestParam(defaultValue = "100") int limit) {
+        QuarantineStatus status = new QuarantineStatus();
+        status.setCounts(migrationQuarantine.countByReason());
+        status.setRows(migrationQuarantine.findAfter(Long.MIN_VALUE, Math.max(1, Math.min(limit, 1000))));
+        return ResponseEntity.ok(status);
+    }
+    
+    /**
+     * Re-migrate only the quarantined rows (transient failures are retried with backoff)
+     */
+    @PostMapping("/quarantine/retry")
+    public ResponseEntity<MigrationService.MigrationResult> retryQuarantined() {
+        MigrationService.MigrationResult result = migrationService.retryQuarantined();
+        
+        if (result.isSuccess()) {
+            return ResponseEntity.ok(result);
+        } else {
+            return ResponseEntity.badRequest().body(result);
+        }
+    }
+    
+    /**
+     * Get the current chunk size, observed latencies and throttle settings of chunked migrations
+     */
+    @GetMapping("/throttle")
+    public ResponseEntity<MigrationThrottle.Stats> getThrottle() {
+        return ResponseEntity.ok(migrationThrottle.getStats());
+    }
+    
+    /**
+     * Change the rows/s cap (0 = unlimited) and/or the latency budget, also while a migration is running
+     */
+    @PutMapping("/throttle")
+    public ResponseEntity<MigrationThrottle.Stats> updateThrottle(
+            @RequestParam(required = false) Double maxRowsPerSecond,
+            @RequestParam(required = false) Long latencyBudgetMs) {
+        try {
+            if (maxRowsPerSecond != null) {
+                migrationThrottle.setMaxRowsPerSecond(maxRowsPerSecond);
+            }
+            if (latencyBudgetMs != null) {
+                migrationThrottle.setLatencyBudgetMs(latencyBudgetMs);
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(migrationThrottle.getStats());
+    }
+    
+    /**
+     * Get the background consistency scrubber's position and drift counters (404 when the scrubber is disabled)
+     */
+    @GetMapping("/scrubber")
+    public ResponseEntity<ConsistencyScrubber.Stats> getScrubberStats() {
+        ConsistencyScrubber scrubber = consistencyScrubber.getIfAvailable();
+        if (scrubber == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(scrubber.getStats());
+    }
+    
     /**
      * Get migration status and statistics
      */
@@ -92,6 +208,19 @@ public class MigrationController {
         return ResponseEntity.ok(status);
     }
     
+    // Inner class for quarantine status
+    public static class QuarantineStatus {
+        private Map<MigrationDeadLetter.FailureReason, Long> counts;
+        private List<MigrationDeadLetter> rows;
+        
+        // Getters and setters
+        public Map<MigrationDeadLetter.FailureReason, Long> getCounts() { return counts; }
+        public void setCounts(Map<MigrationDeadLetter.FailureReason, Long> counts) { this.counts = counts; }
+        
+        public List<MigrationDeadLetter> getRows() { return rows; }
+        public void setRows(List<MigrationDeadLetter> rows) { this.rows = rows; }
+    }
+    
     // Inner class for migration status
     public static class MigrationStatus {
         private long postgresCount;
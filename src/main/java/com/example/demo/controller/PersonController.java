@@ -2,14 +2,20 @@ package com.example.demo.controller;
 
 import com.example.demo.entity.Person;
 import com.example.demo.repository.PersonRepository;
+import com.example.demo.service.PersonService;
+import com.example.demo.support.FieldSelection;
+import com.example.demo.support.SingleFlight;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/people")
@@ -17,23 +23,28 @@ import java.util.Optional;
 public class PersonController {
     
     private final PersonRepository personRepository;
+    private final PersonService personService;
+    private final SingleFlight singleFlight;
     
     @Autowired
-    public PersonController(PersonRepository personRepository) {
+    public PersonController(PersonRepository personRepository, PersonService personService, SingleFlight singleFlight) {
         this.personRepository = personRepository;
+        this.personService = personService;
+        this.singleFlight = singleFlight;
     }
     
     // GET all people
     @GetMapping
-    public ResponseEntity<List<Person>> getAllPeople() {
-        List<Person> people = personRepository.findAll();
-        return ResponseEntity.ok(people);
+    public ResponseEntity<List<?>> getAllPeople(@RequestParam(required = false) String fields) {
+        return respond("findAll", null, fields,
+            () -> personRepository.findAll(),
+            selected -> personRepository.findAllProjected(selected));
     }
     
     // GET person by ID
     @GetMapping("/{id}")
     public ResponseEntity<Person> getPersonById(@PathVariable Long id) {
-        Optional<Person> person = personRepository.findById(id);
+        Optional<Person> person = shared("findById", id, () -> personRepository.findById(id));
         return person.map(ResponseEntity::ok)
                     .orElse(ResponseEntity.notFound().build());
     }
@@ -41,34 +52,22 @@ public class PersonController {
     // POST create new person
     @PostMapping
     public ResponseEntity<Person> createPerson(@RequestBody Person person) {
-        person.setCreatedAt(LocalDateTime.now());
-        Person savedPerson = personRepository.save(person);
+        Person savedPerson = personService.createPerson(person);
         return ResponseEntity.status(HttpStatus.CREATED).body(savedPerson);
     }
     
     // PUT update person
     @PutMapping("/{id}")
     public ResponseEntity<Person> updatePerson(@PathVariable Long id, @RequestBody Person personDetails) {
-        Optional<Person> personOptional = personRepository.findById(id);
-        
-        if (personOptional.isPresent()) {
-            Person person = personOptional.get();
-            person.setName(personDetails.getName());
-            person.setRole(personDetails.getRole());
-            person.setEmail(personDetails.getEmail());
-            
-            Person updatedPerson = personRepository.save(person);
-            return ResponseEntity.ok(updatedPerson);
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+        Optional<Person> updatedPerson = personService.updatePerson(id, personDetails);
+        return updatedPerson.map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
     }
     
     // DELETE person
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletePerson(@PathVariable Long id) {
-        if (personRepository.existsById(id)) {
-            personRepository.deleteById(id);
+        if (personService.deletePerson(id)) {
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
@@ -77,30 +76,48 @@ public class PersonController {
     
     // GET people by role
     @GetMapping("/role/{role}")
-    public ResponseEntity<List<Person>> getPeopleByRole(@PathVariable String role) {
-        List<Person> people = personRepository.findByRole(role);
-        return ResponseEntity.ok(people);
+    public ResponseEntity<List<?>> getPeopleByRole(@PathVariable String role, @RequestParam(required = false) String fields) {
+        return respond("findByRole", role, fields,
+            () -> personRepository.findByRole(role),
+            selected -> personRepository.findByRoleProjected(role, selected));
     }
     
     // GET person by email
     @GetMapping("/email/{email}")
     public ResponseEntity<Person> getPersonByEmail(@PathVariable String email) {
-        Optional<Person> person = personRepository.findByEmail(email);
+        Optional<Person> person = shared("findByEmail", email, () -> personRepository.findByEmail(email));
         return person.map(ResponseEntity::ok)
                     .orElse(ResponseEntity.notFound().build());
     }
     
     // GET people by name (case-insensitive search)
     @GetMapping("/search")
-    public ResponseEntity<List<Person>> searchPeopleByName(@RequestParam String name) {
-        List<Person> people = personRepository.findByNameContainingIgnoreCase(name);
-        return ResponseEntity.ok(people);
+    public ResponseEntity<List<?>> searchPeopleByName(@RequestParam String name, @RequestParam(required = false) String fields) {
+        return respond("findByNameContainingIgnoreCase", name, fields,
+            () -> personRepository.findByNameContainingIgnoreCase(name),
+            selected -> personRepository.findByNameContainingIgnoreCaseProjected(name, selected));
     }
     
     // GET count by role
     @GetMapping("/count/role/{role}")
     public ResponseEntity<Long> getCountByRole(@PathVariable String role) {
-        long count = personRepository.countByRole(role);
+        long count = shared("countByRole", role, () -> personRepository.countByRole(role));
         return ResponseEntity.ok(count);
     }
+    
+    // Identical concurrent reads share one query
+    private <T> T shared(String query, Object argument, Supplier<T> loader) {
+        return singleFlight.execute(Arrays.asList("postgres", query, argument), loader);
+    }
+    
+    // Full entities, or a query selecting only the requested columns when ?fields= is given
+    private ResponseEntity<List<?>> respond(String query, Object argument, String fields,
+                                            Supplier<List<Person>> loader,
+                                            Function<List<String>, List<Map<String, Object>>> projectedLoader) {
+        List<String> selected = FieldSelection.PERSON.parse(fields);
+        List<?> body = selected == null
+            ? shared(query, argument, loader)
+            : shared(query + "Projected", Arrays.asList(argument, selected), () -> projectedLoader.apply(selected));
+        return ResponseEntity.ok(body);
+    }
 }
@@ -1,8 +1,14 @@
 package com.example.demo.controller;
 
 import com.example.demo.entity.PersonMongo;
+import com.example.demo.repository.PersonMongoReadRouter;
 import com.example.demo.repository.PersonMongoRepository;
+import com.example.demo.service.PersonMongoReadCache;
+import com.example.demo.support.PersonMongoChangedEvent;
+import com.example.demo.support.FieldSelection;
+import com.example.demo.support.SingleFlight;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -10,39 +16,58 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/mongo/people")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = PersonMongoReadRouter.LAST_WRITE_HEADER)
 @Validated
 public class PersonMongoController {
     
     private final PersonMongoRepository personMongoRepository;
+    private final PersonMongoReadRouter readRouter;
+    private final SingleFlight singleFlight;
+    private final PersonMongoReadCache readCache;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Autowired
-    public PersonMongoController(PersonMongoRepository personMongoRepository) {
+    public PersonMongoController(PersonMongoRepository personMongoRepository,
+                                 PersonMongoReadRouter readRouter,
+                                 SingleFlight singleFlight,
+                                 PersonMongoReadCache readCache,
+                                 ApplicationEventPublisher eventPublisher) {
         this.personMongoRepository = personMongoRepository;
+        this.readRouter = readRouter;
+        this.singleFlight = singleFlight;
+        this.readCache = readCache;
+        this.eventPublisher = eventPublisher;
     }
     
     // GET all people
     @GetMapping
-    public ResponseEntity<List<PersonMongo>> getAllPeople() {
-        List<PersonMongo> people = personMongoRepository.findAll();
-        return ResponseEntity.ok(people);
+    public ResponseEntity<List<?>> getAllPeople(@RequestParam(required = false) String fields) {
+        return respond("findAll", null, fields,
+            () -> scans().findAll(),
+            selected -> scans().findAllProjected(selected));
     }
     
     // GET person by ID (supports both ObjectId and legacy PostgreSQL ID)
     @GetMapping("/{id}")
     public ResponseEntity<PersonMongo> getPersonById(@PathVariable String id) {
-        // Try ObjectId first
-        Optional<PersonMongo> person = personMongoRepository.findById(id);
-        
-        // If not found and ID is numeric, try PostgreSQL ID
-        if (!person.isPresent() && id.matches("\\d+")) {
-            person = personMongoRepository.findByPostgresId(Long.parseLong(id));
-        }
+        Optional<PersonMongo> person = shared("findById", id, () -> {
+            // Try ObjectId first
+            Optional<PersonMongo> found = personMongoRepository.findById(id);
+            
+            // If not found and ID is numeric, try PostgreSQL ID
+            if (!found.isPresent() && id.matches("\\d+")) {
+                found = personMongoRepository.findByPostgresId(Long.parseLong(id));
+            }
+            return found;
+        });
         
         return person.map(ResponseEntity::ok)
                     .orElse(ResponseEntity.notFound().build());
@@ -53,7 +78,10 @@ public class PersonMongoController {
     public ResponseEntity<PersonMongo> createPerson(@Valid @RequestBody PersonMongo person) {
         person.setCreatedAt(LocalDateTime.now());
         PersonMongo savedPerson = personMongoRepository.save(person);
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedPerson);
+        eventPublisher.publishEvent(new PersonMongoChangedEvent("insert", savedPerson.getId(), savedPerson.getRole()));
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .header(PersonMongoReadRouter.LAST_WRITE_HEADER, readRouter.writeToken())
+            .body(savedPerson);
     }
     
     // PUT update person
@@ -68,7 +96,10 @@ public class PersonMongoController {
             person.setEmail(personDetails.getEmail());
             
             PersonMongo updatedPerson = personMongoRepository.save(person);
-            return ResponseEntity.ok(updatedPerson);
+            eventPublisher.publishEvent(new PersonMongoChangedEvent("update", id, null));
+            return ResponseEntity.ok()
+                .header(PersonMongoReadRouter.LAST_WRITE_HEADER, readRouter.writeToken())
+                .body(updatedPerson);
         } else {
             return ResponseEntity.notFound().build();
         }
@@ -79,7 +110,10 @@ public class PersonMongoController {
     public ResponseEntity<Void> deletePerson(@PathVariable String id) {
         if (personMongoRepository.existsById(id)) {
             personMongoRepository.deleteById(id);
-            return ResponseEntity.noContent().build();
+            eventPublisher.publishEvent(new PersonMongoChangedEvent("delete", id, null));
+            return ResponseEntity.noContent()
+                .header(PersonMongoReadRouter.LAST_WRITE_HEADER, readRouter.writeToken())
+                .build();
         } else {
             return ResponseEntity.notFound().build();
         }
@@ -87,30 +121,33 @@ public class PersonMongoController {
     
     // GET people by role
     @GetMapping("/role/{role}")
-    public ResponseEntity<List<PersonMongo>> getPeopleByRole(@PathVariable String role) {
-        List<PersonMongo> people = personMongoRepository.findByRole(role);
-        return ResponseEntity.ok(people);
+    public ResponseEntity<List<?>> getPeopleByRole(@PathVariable String role, @RequestParam(required = false) String fields) {
+        return respond("findByRole", role, fields,
+            () -> scans().findByRole(role),
+            selected -> scans().findByRoleProjected(role, selected));
     }
     
     // GET person by email
     @GetMapping("/email/{email}")
     public ResponseEntity<PersonMongo> getPersonByEmail(@PathVariable String email) {
-        Optional<PersonMongo> person = personMongoRepository.findByEmail(email);
+        Optional<PersonMongo> person = shared("findByEmail", email, () -> personMongoRepository.findByEmail(email));
         return person.map(ResponseEntity::ok)
                     .orElse(ResponseEntity.notFound().build());
     }
     
     // GET people by name (case-insensitive search)
     @GetMapping("/search")
-    public ResponseEntity<List<PersonMongo>> searchPeopleByName(@RequestParam String name) {
-        List<PersonMongo> people = personMongoRepository.findByNameContainingIgnoreCase(name);
-        return ResponseEntity.ok(people);
+    public ResponseEntity<List<?>> searchPeopleByName(@RequestParam String name, @RequestParam(required = false) String fields) {
+        return respond("findByNameContainingIgnoreCase", name, fields,
+            () -> scans().findByNameContainingIgnoreCase(name),
+            selected -> scans().findByNameContainingIgnoreCaseProjected(name, selected));
     }
     
     // GET count by role
     @GetMapping("/count/role/{role}")
     public ResponseEntity<Long> getCountByRole(@PathVariable String role) {
-        long count = personMongoRepository.countByRole(role);
+        long count = readCache.getCountByRole(role,
+            () -> shared("countByRole", role, () -> aggregates().countByRole(role)));
         return ResponseEntity.ok(count);
     }
     
@@ -118,15 +155,17 @@ public class PersonMongoController {
     
     // GET all people with PostgreSQL IDs (for migration verification)
     @GetMapping("/migration/postgres-ids")
-    public ResponseEntity<List<PersonMongo>> getAllWithPostgresIds() {
-        List<PersonMongo> people = personMongoRepository.findAllWithPostgresId();
-        return ResponseEntity.ok(people);
+    public ResponseEntity<List<?>> getAllWithPostgresIds(@RequestParam(required = false) String fields) {
+        return respond("findAllWithPostgresId", null, fields,
+            () -> scans().findAllWithPostgresId(),
+            selected -> scans().findAllWithPostgresIdProjected(selected));
     }
     
     // GET person by PostgreSQL ID
     @GetMapping("/migration/postgres-id/{postgresId}")
     public ResponseEntity<PersonMongo> getPersonByPostgresId(@PathVariable Long postgresId) {
-        Optional<PersonMongo> person = personMongoRepository.findByPostgresId(postgresId);
+        Optional<PersonMongo> person = shared("findByPostgresId", postgresId,
+            () -> personMongoRepository.findByPostgresId(postgresId));
         return person.map(ResponseEntity::ok)
                     .orElse(ResponseEntity.notFound().build());
     }
@@ -135,34 +174,69 @@ public class PersonMongoController {
     
     // GET people by role and created after date
     @GetMapping("/advanced/role/{role}/after")
-    public ResponseEntity<List<PersonMongo>> getPeopleByRoleAndCreatedAfter(
+    public ResponseEntity<List<?>> getPeopleByRoleAndCreatedAfter(
             @PathVariable String role,
-            @RequestParam String startDate) {
+            @RequestParam String startDate,
+            @RequestParam(required = false) String fields) {
         LocalDateTime startDateTime = LocalDateTime.parse(startDate);
-        List<PersonMongo> people = personMongoRepository.findByRoleAndCreatedAfter(role, startDateTime);
-        return ResponseEntity.ok(people);
+        return respond("findByRoleAndCreatedAfter", Arrays.asList(role, startDateTime), fields,
+            () -> scans().findByRoleAndCreatedAfter(role, startDateTime),
+            selected -> scans().findByRoleAndCreatedAfterProjected(role, startDateTime, selected));
     }
     
     // GET people by name and role
     @GetMapping("/advanced/search")
-    public ResponseEntity<List<PersonMongo>> searchPeopleByNameAndRole(
+    public ResponseEntity<List<?>> searchPeopleByNameAndRole(
             @RequestParam String name,
-            @RequestParam String role) {
-        List<PersonMongo> people = personMongoRepository.findByNameContainingAndRole(name, role);
-        return ResponseEntity.ok(people);
+            @RequestParam String role,
+            @RequestParam(required = false) String fields) {
+        return respond("findByNameContainingAndRole", Arrays.asList(name, role), fields,
+            () -> scans().findByNameContainingAndRole(name, role),
+            selected -> scans().findByNameContainingAndRoleProjected(name, role, selected));
     }
     
     // GET all unique roles
     @GetMapping("/roles")
     public ResponseEntity<List<String>> getAllRoles() {
-        List<String> roles = personMongoRepository.findAllRoles();
+        List<String> roles = readCache.getRoles(
+            () -> shared("findAllRoles", null, () -> aggregates().findAllRoles()));
         return ResponseEntity.ok(roles);
     }
     
     // Text search (requires text index)
     @GetMapping("/text-search")
-    public ResponseEntity<List<PersonMongo>> textSearch(@RequestParam String query) {
-        List<PersonMongo> people = personMongoRepository.findByTextSearch(query);
-        return ResponseEntity.ok(people);
+    public ResponseEntity<List<?>> textSearch(@RequestParam String query, @RequestParam(required = false) String fields) {
+        return respond("findByTextSearch", query, fields,
+            () -> scans().findByTextSearch(query),
+            selected -> scans().findByTextSearchProjected(query, selected));
+    }
+    
+    // Identical concurrent reads share one query; primary and secondary reads are never shared
+    private <T> T shared(String query, Object argument, Supplier<T> loader) {
+        return singleFlight.execute(Arrays.asList("mongo", readRouter.readsFromSecondary(), query, argument), loader);
+    }
+    
+    // Scans may be served by a secondary (see PersonMongoReadRouter)
+    private PersonMongoRepository scans() {
+        return readRouter.scans();
+    }
+    
+    // Cached aggregates load from the primary: a lagging secondary could re-cache a value that was just invalidated
+    private PersonMongoRepository aggregates() {
+        return readCache.isCaching() ? personMongoRepository : readRouter.scans();
+    }
+    
+    // Full documents, or a query returning only the requested fields when ?fields= is given
+    private ResponseEntity<List<?>> respond(String query, Object argument, String fields,
+                                            Supplier<List<PersonMongo>> loader,
+                                            Function<List<String>, List<PersonMongo>> projectedLoader) {
+        List<String> selected = FieldSelection.PERSON_MONGO.parse(fields);
+        if (selected == null) {
+            List<PersonMongo> people = shared(query, argument, loader);
+            return ResponseEntity.ok(people);
+        }
+        List<PersonMongo> people = shared(query + "Projected", Arrays.asList(argument, selected),
+            () -> projectedLoader.apply(selected));
+        return ResponseEntity.ok(FieldSelection.PERSON_MONGO.project(people, selected));
     }
 }
@@ -0,0 +1,98 @@
+package com.example.demo.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A PostgreSQL row that could not be migrated to MongoDB, keyed by its PostgreSQL id.
+ * Recording the same row again updates the reason and message and counts another attempt.
+ */
+@Document(collection = "migrationDeadLetters")
+public class MigrationDeadLetter {
+    
+    public enum FailureReason {
+        DUPLICATE_KEY,  // collides with an existing document, usually on the unique email index
+        VALIDATION,     // rejected by collection validation
+        TRANSIENT,      // MongoDB was unavailable, stepping down or timing out; retrying is expected to succeed
+        UNKNOWN
+    }
+    
+    @Id
+    private Long postgresId;
+    
+    private FailureReason reason;
+    
+    private String message;
+    
+    private int attempts;
+    
+    private LocalDateTime firstFailedAt;
+    
+    private LocalDateTime lastFailedAt;
+    
+    // Default constructor
+    public MigrationDeadLetter() {
+    }
+    
+    // Getters and Setters
+    public Long getPostgresId() {
+        return postgresId;
+    }
+    
+    public void setPostgresId(Long postgresId) {
+        this.postgresId = postgresId;
+    }
+    
+    public FailureReason getReason() {
+        return reason;
+    }
+    
+    public void setReason(FailureReason reason) {
+        this.reason = reason;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    public int getAttempts() {
+        return attempts;
+    }
+    
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+    
+    public LocalDateTime getFirstFailedAt() {
+        return firstFailedAt;
+    }
+    
+    public void setFirstFailedAt(LocalDateTime firstFailedAt) {
+        this.firstFailedAt = firstFailedAt;
+    }
+    
+    public LocalDateTime getLastFailedAt() {
+        return lastFailedAt;
+    }
+    
+    public void setLastFailedAt(LocalDateTime lastFailedAt) {
+        this.lastFailedAt = lastFailedAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "MigrationDeadLetter{" +
+                "postgresId=" + postgresId +
+                ", reason=" + reason +
+                ", message='" + message + '\'' +
+                ", attempts=" + attempts +
+                ", lastFailedAt=" + lastFailedAt +
+                '}';
+    }
+}
@@ -4,13 +4,18 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.Sharded;
+import org.springframework.data.mongodb.core.mapping.ShardingStrategy;
 
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
 
+// Hashed postgresId spreads the monotonic ids across shards; applied by ShardingInitializer when enabled.
+// postgresId never changes, so replacements need not re-read it before targeting the shard.
 @Document(collection = "people")
+@Sharded(shardKey = { "postgresId" }, shardingStrategy = ShardingStrategy.HASH, immutableKey = true)
 public class PersonMongo {
     
     @Id
@@ -26,8 +31,8 @@ public class PersonMongo {
     @Indexed
     private String role;
     
+    // Indexed by PersonMongoIndexes: unique unless the collection is sharded
     @Email(message = "Email should be valid")
-    @Indexed(unique = true)
     private String email;
     
     @Field("createdAt")
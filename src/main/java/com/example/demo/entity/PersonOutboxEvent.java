@@ -0,0 +1,106 @@
+package com.example.demo.entity;
+
+import javax.persistence.*;
+
+/**
+ * Outbox row recording that a person changed, written in the same transaction as the change.
+ * The projector reads the current row from people when it applies the event, so the outbox
+ * only needs to say which person changed.
+ */
+@Entity
+@Table(name = "person_outbox")
+public class PersonOutboxEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "person_id", nullable = false)
+    private Long personId;
+    
+    @Column(nullable = false)
+    private String operation;
+    
+    @Column(nullable = false)
+    private int attempts;
+    
+    @Column(name = "created_at", nullable = false)
+    private java.time.LocalDateTime createdAt;
+    
+    // Earliest time a failed event is claimed again; null until the first failure
+    @Column(name = "next_attempt_at")
+    private java.time.LocalDateTime nextAttemptAt;
+    
+    // Default constructor
+    public PersonOutboxEvent() {
+        this.createdAt = java.time.LocalDateTime.now();
+    }
+    
+    // Constructor with parameters
+    public PersonOutboxEvent(Long personId, String operation) {
+        this.personId = personId;
+        this.operation = operation;
+        this.createdAt = java.time.LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getPersonId() {
+        return personId;
+    }
+    
+    public void setPersonId(Long personId) {
+        this.personId = personId;
+    }
+    
+    public String getOperation() {
+        return operation;
+    }
+    
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+    
+    public int getAttempts() {
+        return attempts;
+    }
+    
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+    
+    public java.time.LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(java.time.LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public java.time.LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+    
+    public void setNextAttemptAt(java.time.LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "PersonOutboxEvent{" +
+                "id=" + id +
+                ", personId=" + personId +
+                ", operation='" + operation + '\'' +
+                ", attempts=" + attempts +
+                ", createdAt=" + createdAt +
+                ", nextAttemptAt=" + nextAttemptAt +
+                '}';
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.PersonMongo;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Variants of the PersonMongoRepository list finders that fetch only the requested fields.
+ * Fields that were not requested are left null on the returned documents.
+ */
+public interface PersonMongoProjectionRepository {
+    
+    List<PersonMongo> findAllProjected(List<String> fields);
+    
+    List<PersonMongo> findByRoleProjected(String role, List<String> fields);
+    
+    List<PersonMongo> findByNameContainingIgnoreCaseProjected(String name, List<String> fields);
+    
+    List<PersonMongo> findAllWithPostgresIdProjected(List<String> fields);
+    
+    List<PersonMongo> findByRoleAndCreatedAfterProjected(String role, LocalDateTime startDate, List<String> fields);
+    
+    List<PersonMongo> findByNameContainingAndRoleProjected(String name, String role, List<String> fields);
+    
+    List<PersonMongo> findByTextSearchProjected(String searchText, List<String> fields);
+}
@@ -0,0 +1,74 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.PersonMongo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Field;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Same filters as the @Query methods of PersonMongoRepository, with a fields projection
+ * so the server only returns the requested fields (validated by FieldSelection.PERSON_MONGO).
+ */
+public class PersonMongoProjectionRepositoryImpl implements PersonMongoProjectionRepository {
+    
+    private final MongoTemplate mongoTemplate;
+    
+    @Autowired
+    public PersonMongoProjectionRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+    
+    @Override
+    public List<PersonMongo> findAllProjected(List<String> fields) {
+        return find(new Query(), fields);
+    }
+    
+    @Override
+    public List<PersonMongo> findByRoleProjected(String role, List<String> fields) {
+        return find(Query.query(Criteria.where("role").is(role)), fields);
+    }
+    
+    @Override
+    public List<PersonMongo> findByNameContainingIgnoreCaseProjected(String name, List<String> fields) {
+        return find(Query.query(Criteria.where("name").regex(name, "i")), fields);
+    }
+    
+    @Override
+    public List<PersonMongo> findAllWithPostgresIdProjected(List<String> fields) {
+        return find(Query.query(Criteria.where("postgresId").exists(true)), fields);
+    }
+    
+    @Override
+    public List<PersonMongo> findByRoleAndCreatedAfterProjected(String role, LocalDateTime startDate, List<String> fields) {
+        return find(Query.query(Criteria.where("role").is(role).and("createdAt").gte(startDate)), fields);
+    }
+    
+    @Override
+    public List<PersonMongo> findByNameContainingAndRoleProjected(String name, String role, List<String> fields) {
+        return find(Query.query(Criteria.where("name").regex(name, "i").and("role").is(role)), fields);
+    }
+    
+    @Override
+    public List<PersonMongo> findByTextSearchProjected(String searchText, List<String> fields) {
+        return find(TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(searchText)), fields);
+    }
+    
+    private List<PersonMongo> find(Query query, List<String> fields) {
+        Field projection = query.fields();
+        for (String field : fields) {
+            projection.include(field);
+        }
+        // _id is returned unless excluded explicitly
+        if (!fields.contains("id")) {
+            projection.exclude("id");
+        }
+        return mongoTemplate.find(query, PersonMongo.class);
+    }
+}
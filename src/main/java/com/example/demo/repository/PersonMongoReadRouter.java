@@ -0,0 +1,89 @@
+package com.example.demo.repository;
+
+import com.mongodb.ReadPreference;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses the replica set members that serve PersonMongoRepository scans, aggregations and counts.
+ *
+ * With app.mongo.read-routing.enabled they run on a second repository whose template reads
+ * secondaryPreferred with a bounded maxStaleness. Write endpoints return an X-Last-Write token;
+ * a request that sends back a token younger than the read-your-writes window reads from the
+ * primary, so a client always sees its own writes. Point lookups always use the primary.
+ */
+@Component
+public class PersonMongoReadRouter {
+    
+    public static final String LAST_WRITE_HEADER = "X-Last-Write";
+    
+    private final PersonMongoRepository primary;
+    private final PersonMongoRepository secondary;
+    private final long readYourWritesWindowMs;
+    
+    @Autowired
+    public PersonMongoReadRouter(PersonMongoRepository personMongoRepository,
+                                 MongoDatabaseFactory mongoDatabaseFactory,
+                                 MongoConverter mongoConverter,
+                                 @Value("${app.mongo.read-routing.enabled:false}") boolean enabled,
+                                 @Value("${app.mongo.read-routing.max-staleness-seconds:90}") long maxStalenessSeconds,
+                                 @Value("${app.mongo.read-routing.read-your-writes-window-ms:90000}") long readYourWritesWindowMs) {
+        this.primary = personMongoRepository;
+        this.readYourWritesWindowMs = readYourWritesWindowMs;
+        
+        if (enabled) {
+            // Not a bean: a second MongoTemplate bean would switch off the auto-configured one
+            MongoTemplate template = new MongoTemplate(mongoDatabaseFactory, mongoConverter);
+            template.setReadPreference(ReadPreference.secondaryPreferred(maxStalenessSeconds, TimeUnit.SECONDS));
+            this.secondary = new MongoRepositoryFactory(template).getRepository(PersonMongoRepository.class,
+                RepositoryFragments.just(new PersonMongoProjectionRepositoryImpl(template)));
+        } else {
+            this.secondary = null;
+        }
+    }
+    
+    /**
+     * Repository for scans and counts of the current request
+     */
+    public PersonMongoRepository scans() {
+        return readsFromSecondary() ? secondary : primary;
+    }
+    
+    public boolean readsFromSecondary() {
+        return secondary != null && !withinReadYourWritesWindow();
+    }
+    
+    /**
+     * Value for the X-Last-Write header of a write response
+     */
+    public String writeToken() {
+        return Long.toString(System.currentTimeMillis());
+    }
+    
+    private boolean withinReadYourWritesWindow() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return false;
+        }
+        String token = ((ServletRequestAttributes) attributes).getRequest().getHeader(LAST_WRITE_HEADER);
+        if (token == null) {
+            return false;
+        }
+        try {
+            return System.currentTimeMillis() - Long.parseLong(token.trim()) < readYourWritesWindowMs;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -6,11 +6,12 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface PersonMongoRepository extends MongoRepository<PersonMongo, String> {
+public interface PersonMongoRepository extends MongoRepository<PersonMongo, String>, PersonMongoProjectionRepository {
     
     // Basic query methods (same as PostgreSQL)
     List<PersonMongo> findByRole(String role);
@@ -32,6 +33,10 @@ public interface PersonMongoRepository extends MongoRepository<PersonMongo, Stri
     // Migration compatibility methods
     Optional<PersonMongo> findByPostgresId(Long postgresId);
     
+    // Only postgresId is loaded; used to find which rows of a chunk are already migrated
+    @Query(value = "{ 'postgresId' : { $in : ?0 } }", fields = "{ 'postgresId' : 1 }")
+    List<PersonMongo> findByPostgresIdIn(Collection<Long> postgresIds);
+    
     @Query("{ 'postgresId' : { $exists : true } }")
     List<PersonMongo> findAllWithPostgresId();
     
@@ -0,0 +1,43 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.PersonOutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PersonOutboxRepository extends JpaRepository<PersonOutboxEvent, Long> {
+    
+    // Oldest pending events that are due and not locked by another projector (must run inside a transaction)
+    @Query(value = "SELECT * FROM person_outbox WHERE attempts < :maxAttempts " +
+                   "AND (next_attempt_at IS NULL OR next_attempt_at <= LOCALTIMESTAMP) " +
+                   "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<PersonOutboxEvent> claimBatch(@Param("maxAttempts") int maxAttempts, @Param("limit") int limit);
+    
+    // Transaction-scoped advisory lock per person, so only one projector applies a given person at a time.
+    // Returns (person_id, locked) rows. OFFSET 0 keeps the subquery from being inlined, so the lock is only
+    // tried on the people of these events and never on rows the planner looks at before filtering
+    @Query(value = "SELECT s.person_id, pg_try_advisory_xact_lock(s.person_id) " +
+                   "FROM (SELECT DISTINCT person_id FROM person_outbox WHERE id IN (:ids) OFFSET 0) s",
+           nativeQuery = true)
+    List<Object[]> lockPeople(@Param("ids") Collection<Long> eventIds);
+    
+    // Count a failed attempt and delay the next one by backoffMs * 2^attempts, capped at maxBackoffMs
+    @Modifying
+    @Query(value = "UPDATE person_outbox SET attempts = attempts + 1, " +
+                   "next_attempt_at = LOCALTIMESTAMP + LEAST(:maxBackoffMs, :backoffMs * power(2, attempts)) * INTERVAL '1 millisecond' " +
+                   "WHERE id IN (:ids)",
+           nativeQuery = true)
+    int recordFailedAttempt(@Param("ids") Collection<Long> eventIds,
+                            @Param("backoffMs") long backoffMs,
+                            @Param("maxBackoffMs") long maxBackoffMs);
+    
+    @Query("SELECT COUNT(e) FROM PersonOutboxEvent e WHERE e.attempts >= :maxAttempts")
+    long countStuck(@Param("maxAttempts") int maxAttempts);
+}
@@ -0,0 +1,17 @@
+package com.example.demo.repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * List finders that select only the requested columns and return them as rows of field name to value.
+ * Nothing is loaded into the persistence context.
+ */
+public interface PersonProjectionRepository {
+    
+    List<Map<String, Object>> findAllProjected(List<String> fields);
+    
+    List<Map<String, Object>> findByRoleProjected(String role, List<String> fields);
+    
+    List<Map<String, Object>> findByNameContainingIgnoreCaseProjected(String name, List<String> fields);
+}
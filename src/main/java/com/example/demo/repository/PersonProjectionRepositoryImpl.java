@@ -0,0 +1,82 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Person;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Tuple queries over the Person columns named in fields (validated by FieldSelection.PERSON).
+ * Rows omit null values, like FieldSelection projections.
+ */
+@Transactional(readOnly = true)
+public class PersonProjectionRepositoryImpl implements PersonProjectionRepository {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<Map<String, Object>> findAllProjected(List<String> fields) {
+        return select(fields, (cb, person) -> null);
+    }
+    
+    @Override
+    public List<Map<String, Object>> findByRoleProjected(String role, List<String> fields) {
+        return select(fields, (cb, person) -> cb.equal(person.get("role"), role));
+    }
+    
+    @Override
+    public List<Map<String, Object>> findByNameContainingIgnoreCaseProjected(String name, List<String> fields) {
+        // Same matching as the derived findByNameContainingIgnoreCase
+        String pattern = "%" + escapeLike(name.toUpperCase()) + "%";
+        return select(fields, (cb, person) -> cb.like(cb.upper(person.<String>get("name")), pattern, '\\'));
+    }
+    
+    private List<Map<String, Object>> select(List<String> fields,
+                                             BiFunction<CriteriaBuilder, Root<Person>, Predicate> restriction) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Person> person = query.from(Person.class);
+        
+        List<Selection<?>> columns = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            columns.add(person.get(field).alias(field));
+        }
+        query.multiselect(columns);
+        
+        Predicate predicate = restriction.apply(cb, person);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        
+        List<Tuple> tuples = entityManager.createQuery(query).getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : fields) {
+                Object value = tuple.get(field);
+                if (value != null) {
+                    row.put(field, value);
+                }
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+    
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -1,27 +1,51 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.Person;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+// Reads run in read-only transactions: no flush and no dirty-checking snapshots for loaded people.
+// Writes go through PersonService, whose read-write transaction the inherited save/delete join.
 @Repository
-public interface PersonRepository extends JpaRepository<Person, Long> {
+@Transactional(readOnly = true)
+public interface PersonRepository extends JpaRepository<Person, Long>, PersonProjectionRepository {
     
     // Custom query methods
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
     List<Person> findByRole(String role);
     
     Optional<Person> findByEmail(String email);
     
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
     List<Person> findByNameContainingIgnoreCase(String name);
     
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
     @Query("SELECT p FROM Person p WHERE p.createdAt >= :startDate")
     List<Person> findPeopleCreatedAfter(@Param("startDate") java.time.LocalDateTime startDate);
     
     @Query("SELECT COUNT(p) FROM Person p WHERE p.role = :role")
     long countByRole(@Param("role") String role);
+    
+    // Keyset paging in primary key order (for exports and batch jobs)
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    List<Person> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    // Same per-person advisory lock as the outbox projector; returns (id, locked) rows (must run inside a transaction).
+    // OFFSET 0 keeps the subquery from being inlined, so the lock is only tried on people that passed the IN filter
+    @Query(value = "SELECT s.id, pg_try_advisory_xact_lock(s.id) FROM (SELECT id FROM people WHERE id IN (:ids) OFFSET 0) s",
+           nativeQuery = true)
+    List<Object[]> lockPeople(@Param("ids") Collection<Long> ids);
 }
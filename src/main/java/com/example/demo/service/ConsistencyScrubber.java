@@ -0,0 +1,322 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Person;
+import com.example.demo.entity.PersonMongo;
+import com.example.demo.repository.PersonRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Background comparison of PostgreSQL people with their MongoDB documents, with repair.
+ *
+ * Every run takes the next app.scrubber.batch-size people in id order and the MongoDB documents in
+ * the same postgresId range, and finds missing documents, extra documents (no PostgreSQL row),
+ * duplicates and mismatched name, role, email or createdAt. Drifted people are repaired like the
+ * outbox projector applies them: under the per-person advisory lock, from the current PostgreSQL
+ * row, in one bulk write. Extra documents above the highest PostgreSQL id are deleted in batches
+ * at the end of each pass. The cursor is kept in the scrubberState collection, so a restart
+ * continues where the last run stopped; after the last person the next pass starts over.
+ */
+@Service
+@Lazy(false)
+@ConditionalOnProperty(name = "app.scrubber.enabled", havingValue = "true")
+public class ConsistencyScrubber {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ConsistencyScrubber.class);
+    
+    private static final String STATE_COLLECTION = "scrubberState";
+    private static final String STATE_ID = "people";
+    
+    private final PersonRepository personRepository;
+    private final PersonMongoWriter personMongoWriter;
+    private final MongoTemplate mongoTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final boolean repair;
+    
+    // Only the scheduler thread moves the cursor; counters are also read by getStats()
+    private Long cursor;
+    private long passes;
+    private long scanned;
+    private long missing;
+    private long extra;
+    private long mismatched;
+    private long duplicates;
+    private long repaired;
+    private long repairFailures;
+    private long skippedLocked;
+    private LocalDateTime lastRunAt;
+    
+    public ConsistencyScrubber(PersonRepository personRepository,
+                               PersonMongoWriter personMongoWriter,
+                               MongoTemplate mongoTemplate,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.scrubber.batch-size:200}") int batchSize,
+                               @Value("${app.scrubber.repair:true}") boolean repair) {
+        this.personRepository = personRepository;
+        this.personMongoWriter = personMongoWriter;
+        this.mongoTemplate = mongoTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.repair = repair;
+    }
+    
+    @Scheduled(fixedDelayString = "${app.scrubber.interval-ms:1000}", initialDelayString = "${app.scrubber.interval-ms:1000}")
+    public void scrubNext() {
+        try {
+            scrubBatch();
+        } catch (RuntimeException e) {
+            logger.warn("Consistency scrub failed, retrying on next run: {}", e.getMessage());
+        }
+    }
+    
+    private void scrubBatch() {
+        if (cursor == null) {
+            loadState();
+        }
+        
+        List<Person> rows = personRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, batchSize));
+        long upperId;
+        boolean lastBatch = false;
+        if (rows.size() == batchSize) {
+            upperId = rows.get(rows.size() - 1).getId();
+        } else {
+            // Past the highest PostgreSQL id only extra documents remain; they are taken batch-size at a time
+            long lastRowId = rows.isEmpty() ? cursor : rows.get(rows.size() - 1).getId();
+            Long tailId = findDocumentIdAfter(lastRowId, batchSize);
+            lastBatch = tailId == null;
+            upperId = lastBatch ? Long.MAX_VALUE : tailId;
+        }
+        Map<Long, List<Document>> documents = loadDocuments(cursor, upperId);
+        
+        Set<Long> drifted = new HashSet<>();
+        Map<Long, List<Object>> duplicateDocumentIds = new HashMap<>();
+        int batchMissing = 0;
+        int batchMismatched = 0;
+        for (Person person : rows) {
+            List<Document> copies = documents.remove(person.getId());
+            if (copies == null) {
+                batchMissing++;
+                drifted.add(person.getId());
+                continue;
+            }
+            for (Document duplicate : copies.subList(1, copies.size())) {
+                duplicateDocumentIds.computeIfAbsent(person.getId(), id -> new ArrayList<>(1)).add(duplicate.get("_id"));
+            }
+            if (!matches(person, copies.get(0))) {
+                batchMismatched++;
+                drifted.add(person.getId());
+            }
+        }
+        // Whatever is left has no PostgreSQL row in this range
+        drifted.addAll(documents.keySet());
+        
+        RepairOutcome outcome = repair && (!drifted.isEmpty() || !duplicateDocumentIds.isEmpty())
+            ? transactionTemplate.execute(status -> repair(drifted, duplicateDocumentIds))
+            : new RepairOutcome();
+            
+        synchronized (this) {
+            scanned += rows.size();
+            missing += batchMissing;
+            mismatched += batchMismatched;
+            extra += documents.size();
+            duplicates += duplicateDocumentIds.values().stream().mapToInt(List::size).sum();
+            repaired += outcome.repaired;
+            repairFailures += outcome.failed;
+            skippedLocked += outcome.skippedLocked;
+            lastRunAt = LocalDateTime.now();
+            
+            if (lastBatch) {
+                passes++;
+                cursor = 0L;
+                logger.info("Consistency scrub pass {} complete: {} scanned, {} missing, {} extra, {} mismatched, {} duplicates, {} repaired",
+                    passes, scanned, missing, extra, mismatched, duplicates, repaired);
+            } else {
+                cursor = upperId;
+            }
+        }
+        saveState();
+    }
+    
+    // Documents with postgresId in (afterId, upToId], grouped by postgresId
+    private Map<Long, List<Document>> loadDocuments(long afterId, long upToId) {
+        Query query = Query.query(Criteria.where("postgresId").gt(afterId).lte(upToId));
+        query.fields().include("postgresId", "name", "role", "email", "createdAt");
+        
+        Map<Long, List<Document>> documents = new HashMap<>();
+        for (Document document : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(PersonMongo.class))) {
+            long postgresId = ((Number) document.get("postgresId")).longValue();
+            documents.computeIfAbsent(postgresId, id -> new ArrayList<>(1)).add(document);
+        }
+        return documents;
+    }
+    
+    // postgresId of the n-th document above afterId, or null when there are fewer
+    private Long findDocumentIdAfter(long afterId, int n) {
+        Query query = Query.query(Criteria.where("postgresId").gt(afterId))
+            .with(Sort.by("postgresId"))
+            .skip(n - 1)
+            .limit(1);
+        query.fields().include("postgresId");
+        Document document = mongoTemplate.findOne(query, Document.class, mongoTemplate.getCollectionName(PersonMongo.class));
+        return document != null ? ((Number) document.get("postgresId")).longValue() : null;
+    }
+    
+    // createdAt is compared at the millisecond precision MongoDB stores
+    private static boolean matches(Person person, Document document) {
+        return Objects.equals(person.getName(), document.getString("name"))
+            && Objects.equals(person.getRole(), document.getString("role"))
+            && Objects.equals(person.getEmail(), document.getString("email"))
+            && Objects.equals(toDate(person.getCreatedAt()), document.getDate("createdAt"));
+    }
+    
+    private static Date toDate(LocalDateTime dateTime) {
+        return dateTime == null ? null : Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+    
+    // Re-reads the drifted people under their advisory locks, so a concurrent write is never overwritten with older data;
+    // duplicates are removed under the same locks, so the projector cannot be upserting that person at the same time
+    private RepairOutcome repair(Collection<Long> drifted, Map<Long, List<Object>> duplicateDocumentIds) {
+        RepairOutcome outcome = new RepairOutcome();
+        
+        Set<Long> lockTargets = new HashSet<>(drifted);
+        lockTargets.addAll(duplicateDocumentIds.keySet());
+        Set<Long> locked = personRepository.lockPeople(lockTargets).stream()
+            .filter(row -> Boolean.TRUE.equals(row[1]))
+            .map(row -> ((Number) row[0]).longValue())
+            .collect(Collectors.toSet());
+            
+        List<Object> removable = new ArrayList<>();
+        for (Map.Entry<Long, List<Object>> entry : duplicateDocumentIds.entrySet()) {
+            if (locked.contains(entry.getKey())) {
+                removable.addAll(entry.getValue());
+            } else if (!drifted.contains(entry.getKey())) {
+                outcome.skippedLocked++;
+            }
+        }
+        if (!removable.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(removable)),
+                mongoTemplate.getCollectionName(PersonMongo.class));
+        }
+        if (drifted.isEmpty()) {
+            return outcome;
+        }
+        
+        Map<Long, Person> currentRows = personRepository.findAllById(drifted).stream()
+            .collect(Collectors.toMap(Person::getId, Function.identity()));
+            
+        List<Person> upserts = new ArrayList<>();
+        List<Long> deletes = new ArrayList<>();
+        for (Long postgresId : drifted) {
+            Person current = currentRows.get(postgresId);
+            if (current == null) {
+                deletes.add(postgresId);
+            } else if (locked.contains(postgresId)) {
+                upserts.add(current);
+            } else {
+                outcome.skippedLocked++;  // being applied by the outbox projector right now
+            }
+        }
+        
+        int failed = personMongoWriter.replicate(upserts, deletes).size();
+        outcome.repaired = upserts.size() + deletes.size() - failed;
+        outcome.failed = failed;
+        return outcome;
+    }
+    
+    private void loadState() {
+        Document state = mongoTemplate.findById(STATE_ID, Document.class, STATE_COLLECTION);
+        cursor = state != null && state.get("cursor") != null ? ((Number) state.get("cursor")).longValue() : 0L;
+        passes = state != null && state.get("passes") != null ? ((Number) state.get("passes")).longValue() : 0L;
+        logger.info("Consistency scrubber starting after postgresId {} (pass {})", cursor, passes + 1);
+    }
+    
+    private void saveState() {
+        mongoTemplate.upsert(
+            Query.query(Criteria.where("_id").is(STATE_ID)),
+            Update.update("cursor", cursor).set("passes", passes).set("updatedAt", new Date()),
+            STATE_COLLECTION);
+    }
+    
+    public synchronized Stats getStats() {
+        return new Stats(cursor, passes, scanned, missing, extra, mismatched, duplicates,
+            repaired, repairFailures, skippedLocked, lastRunAt);
+    }
+    
+    private static class RepairOutcome {
+        private int repaired;
+        private int failed;
+        private int skippedLocked;
+    }
+    
+    // Drift counters since this instance started; cursor and passes are the persisted position
+    public static class Stats {
+        private final Long cursor;
+        private final long passes;
+        private final long scanned;
+        private final long missing;
+        private final long extra;
+        private final long mismatched;
+        private final long duplicates;
+        private final long repaired;
+        private final long repairFailures;
+        private final long skippedLocked;
+        private final LocalDateTime lastRunAt;
+        
+        public Stats(Long cursor, long passes, long scanned, long missing, long extra, long mismatched, long duplicates,
+                     long repaired, long repairFailures, long skippedLocked, LocalDateTime lastRunAt) {
+            this.cursor = cursor;
+            this.passes = passes;
+            this.scanned = scanned;
+            this.missing = missing;
+            this.extra = extra;
+            this.mismatched = mismatched;
+            this.duplicates = duplicates;
+            this.repaired = repaired;
+            this.repairFailures = repairFailures;
+            this.skippedLocked = skippedLocked;
+            this.lastRunAt = lastRunAt;
+        }
+        
+        // Getters
+        public Long getCursor() { return cursor; }
+        public long getPasses() { return passes; }
+        public long getScanned() { return scanned; }
+        public long getMissing() { return missing; }
+        public long getExtra() { return extra; }
+        public long getMismatched() { return mismatched; }
+        public long getDuplicates() { return duplicates; }
+        public long getRepaired() { return repaired; }
+        public long getRepairFailures() { return repairFailures; }
+        public long getSkippedLocked() { return skippedLocked; }
+        public LocalDateTime getLastRunAt() { return lastRunAt; }
+    }
+}
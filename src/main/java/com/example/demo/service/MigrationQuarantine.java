@@ -0,0 +1,156 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.MigrationDeadLetter;
+import com.example.demo.entity.MigrationDeadLetter.FailureReason;
+import com.mongodb.MongoException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.bulk.BulkWriteError;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dead-letter store for rows the migration could not write, in the migrationDeadLetters collection.
+ * Failures are classified into reason codes so transient ones can be retried and the rest inspected.
+ */
+@Service
+public class MigrationQuarantine {
+    
+    private static final int MAX_MESSAGE_LENGTH = 500;
+    
+    private static final int DUPLICATE_KEY_CODE = 11000;
+    private static final int DOCUMENT_VALIDATION_FAILURE_CODE = 121;
+    
+    // Interrupted, stepped down, not primary, time limit and write conflict errors
+    private static final Set<Integer> TRANSIENT_CODES = new HashSet<>(Arrays.asList(
+        6, 7, 50, 89, 91, 112, 189, 262, 9001, 10107, 11600, 11602, 13435, 13436));
+        
+    private final MongoTemplate mongoTemplate;
+    
+    public MigrationQuarantine(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+    
+    /**
+     * Record failed rows in one bulk write; a row that is already quarantined gets another attempt counted
+     */
+    public void record(Map<Long, Failure> failures) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MigrationDeadLetter.class);
+        for (Map.Entry<Long, Failure> entry : failures.entrySet()) {
+            Update update = new Update()
+                .set("reason", entry.getValue().getReason())
+                .set("message", entry.getValue().getMessage())
+                .set("lastFailedAt", now)
+                .setOnInsert("firstFailedAt", now)
+                .inc("attempts", 1);
+            bulk.upsert(byPostgresId(entry.getKey()), update);
+        }
+        bulk.execute();
+    }
+    
+    /**
+     * Remove rows that have since been migrated
+     */
+    public void release(Collection<Long> postgresIds) {
+        if (!postgresIds.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("postgresId").in(postgresIds)), MigrationDeadLetter.class);
+        }
+    }
+    
+    /**
+     * Quarantined rows in postgresId order, starting after the given id
+     */
+    public List<MigrationDeadLetter> findAfter(long postgresId, int limit) {
+        Query query = Query.query(Criteria.where("postgresId").gt(postgresId))
+            .with(Sort.by("postgresId"))
+            .limit(limit);
+        return mongoTemplate.find(query, MigrationDeadLetter.class);
+    }
+    
+    public Map<FailureReason, Long> countByReason() {
+        Map<FailureReason, Long> counts = new EnumMap<>(FailureReason.class);
+        for (FailureReason reason : FailureReason.values()) {
+            counts.put(reason, mongoTemplate.count(Query.query(Criteria.where("reason").is(reason)), MigrationDeadLetter.class));
+        }
+        return counts;
+    }
+    
+    public static Failure failure(BulkWriteError error) {
+        return new Failure(classify(error.getCode()), error.getMessage());
+    }
+    
+    public static Failure failure(Exception e) {
+        return new Failure(classify(e), e.getMessage());
+    }
+    
+    private static FailureReason classify(int code) {
+        if (code == DUPLICATE_KEY_CODE) {
+            return FailureReason.DUPLICATE_KEY;
+        }
+        if (code == DOCUMENT_VALIDATION_FAILURE_CODE) {
+            return FailureReason.VALIDATION;
+        }
+        return TRANSIENT_CODES.contains(code) ? FailureReason.TRANSIENT : FailureReason.UNKNOWN;
+    }
+    
+    private static FailureReason classify(Exception e) {
+        if (e instanceof DuplicateKeyException) {
+            return FailureReason.DUPLICATE_KEY;
+        }
+        if (e instanceof TransientDataAccessException || e instanceof DataAccessResourceFailureException) {
+            return FailureReason.TRANSIENT;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoSocketException || cause instanceof MongoTimeoutException) {
+                return FailureReason.TRANSIENT;
+            }
+            if (cause instanceof MongoException && ((MongoException) cause).getCode() > 0) {
+                return classify(((MongoException) cause).getCode());
+            }
+        }
+        return FailureReason.UNKNOWN;
+    }
+    
+    private static Query byPostgresId(Long postgresId) {
+        return Query.query(Criteria.where("postgresId").is(postgresId));
+    }
+    
+    // Why one row failed
+    public static class Failure {
+        private final FailureReason reason;
+        private final String message;
+        
+        public Failure(FailureReason reason, String message) {
+            this.reason = reason;
+            this.message = message != null && message.length() > MAX_MESSAGE_LENGTH
+                ? message.substring(0, MAX_MESSAGE_LENGTH)
+                : message;
+        }
+        
+        // Getters
+        public FailureReason getReason() { return reason; }
+        public String getMessage() { return message; }
+    }
+}
@@ -1,77 +1,97 @@
 package com.example.demo.service;
 
+import com.example.demo.entity.MigrationDeadLetter;
 import com.example.demo.entity.Person;
 import com.example.demo.entity.PersonMongo;
 import com.example.demo.repository.PersonRepository;
 import com.example.demo.repository.PersonMongoRepository;
+import com.mongodb.bulk.BulkWriteError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class MigrationService {
     
+    private static final Logger logger = LoggerFactory.getLogger(MigrationService.class);
+    
     private final PersonRepository personRepository;
     private final PersonMongoRepository personMongoRepository;
+    private final PersonMongoWriter personMongoWriter;
+    private final MigrationThrottle migrationThrottle;
+    private final MigrationQuarantine migrationQuarantine;
+    private final int retryMaxAttempts;
+    private final long retryInitialBackoffMs;
+    private final long retryMaxBackoffMs;
     
     @Autowired
-    public MigrationService(PersonRepository personRepository, PersonMongoRepository personMongoRepository) {
+    public MigrationService(PersonRepository personRepository, PersonMongoRepository personMongoRepository,
+                            PersonMongoWriter personMongoWriter, MigrationThrottle migrationThrottle,
+                            MigrationQuarantine migrationQuarantine,
+                            @Value("${app.migration.retry.max-attempts:5}") int retryMaxAttempts,
+                            @Value("${app.migration.retry.initial-backoff-ms:200}") long retryInitialBackoffMs,
+                            @Value("${app.migration.retry.max-backoff-ms:5000}") long retryMaxBackoffMs) {
         this.personRepository = personRepository;
         this.personMongoRepository = personMongoRepository;
+        this.personMongoWriter = personMongoWriter;
+        this.migrationThrottle = migrationThrottle;
+        this.migrationQuarantine = migrationQuarantine;
+        this.retryMaxAttempts = Math.max(1, retryMaxAttempts);
+        this.retryInitialBackoffMs = retryInitialBackoffMs;
+        this.retryMaxBackoffMs = retryMaxBackoffMs;
     }
     
     /**
-     * Migrate all data from PostgreSQL to MongoDB
+     * Migrate all data from PostgreSQL to MongoDB in id-ordered chunks paced by the MigrationThrottle.
+     * No transaction spans the run; each chunk is one short read and one bulk write.
      */
-    @Transactional
     public MigrationResult migrateAllData() {
         MigrationResult result = new MigrationResult();
         
         try {
-            // Get all people from PostgreSQL
-            List<Person> postgresPeople = personRepository.findAll();
-            result.setTotalRecords(postgresPeople.size());
+            result.setTotalRecords((int) personRepository.count());
             
-            for (Person postgresPerson : postgresPeople) {
-                try {
-                    // Check if already migrated
-                    Optional<PersonMongo> existingMongoPerson = 
-                        personMongoRepository.findByPostgresId(postgresPerson.getId());
-                    
-                    if (existingMongoPerson.isPresent()) {
-                        result.incrementSkipped();
-                        continue;
-                    }
-                    
-                    // Create MongoDB document
-                    PersonMongo mongoPerson = new PersonMongo(
-                        postgresPerson.getName(),
-                        postgresPerson.getRole(),
-                        postgresPerson.getEmail(),
-                        postgresPerson.getId()  // Preserve PostgreSQL ID
-                    );
-                    
-                    // Set creation time from PostgreSQL
-                    if (postgresPerson.getCreatedAt() != null) {
-                        mongoPerson.setCreatedAt(postgresPerson.getCreatedAt());
-                    }
-                    
-                    // Save to MongoDB
-                    PersonMongo savedPerson = personMongoRepository.save(mongoPerson);
-                    result.incrementMigrated();
-                    
-                } catch (Exception e) {
-                    result.incrementFailed();
-                    result.addError("Failed to migrate person ID " + postgresPerson.getId() + ": " + e.getMessage());
+            long lastId = 0;
+            while (true) {
+                int chunkSize = migrationThrottle.getChunkSize();
+                
+                long readStart = System.nanoTime();
+                List<Person> chunk = personRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, chunkSize));
+                long readNanos = System.nanoTime() - readStart;
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                
+                long writeStart = System.nanoTime();
+                migrateChunk(chunk, result);
+                long writeNanos = System.nanoTime() - writeStart;
+                
+                lastId = chunk.get(chunk.size() - 1).getId();
+                if (chunk.size() < chunkSize) {
+                    break;
                 }
+                migrationThrottle.afterChunk(chunk.size(), readNanos, writeNanos);
             }
             
             result.setSuccess(true);
             
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.setSuccess(false);
+            result.addError("Migration interrupted");
         } catch (Exception e) {
             result.setSuccess(false);
             result.addError("Migration failed: " + e.getMessage());
@@ -80,6 +100,178 @@ public class MigrationService {
         return result;
     }
     
+    // Upsert the rows of one chunk that are not in MongoDB yet; failed rows go to the quarantine
+    private void migrateChunk(List<Person> chunk, MigrationResult result) {
+        List<Long> ids = new ArrayList<>(chunk.size());
+        for (Person person : chunk) {
+            ids.add(person.getId());
+        }
+        Set<Long> alreadyMigrated = new HashSet<>();
+        for (PersonMongo existing : personMongoRepository.findByPostgresIdIn(ids)) {
+            alreadyMigrated.add(existing.getPostgresId());
+        }
+        
+        List<Person> pending = new ArrayList<>(chunk.size());
+        for (Person person : chunk) {
+            if (alreadyMigrated.contains(person.getId())) {
+                result.incrementSkipped();
+            } else {
+                pending.add(person);
+            }
+        }
+        
+        Map<Long, MigrationQuarantine.Failure> failures = write(pending);
+        List<Long> done = settle(pending, failures, result);
+        done.addAll(alreadyMigrated);
+        migrationQuarantine.release(done);
+    }
+    
+    /**
+     * Write rows as one unordered bulk upsert. If the bulk write fails as a whole, fall back to
+     * one row at a time so that only the rows that really fail are reported.
+     */
+    private Map<Long, MigrationQuarantine.Failure> write(List<Person> rows) {
+        Map<Long, MigrationQuarantine.Failure> failures = new HashMap<>();
+        if (rows.isEmpty()) {
+            return failures;
+        }
+        
+        try {
+            personMongoWriter.upsertAllWithErrors(rows)
+                .forEach((postgresId, error) -> failures.put(postgresId, MigrationQuarantine.failure(error)));
+            return failures;
+        } catch (Exception e) {
+            logger.warn("Bulk write of {} rows failed, retrying row by row: {}", rows.size(), e.getMessage());
+        }
+        
+        MigrationQuarantine.Failure unavailable = null;
+        for (Person person : rows) {
+            // Once MongoDB is unreachable, do not wait out a timeout for every remaining row
+            if (unavailable != null) {
+                failures.put(person.getId(), unavailable);
+                continue;
+            }
+            try {
+                BulkWriteError error = personMongoWriter.upsertAllWithErrors(Collections.singletonList(person)).get(person.getId());
+                if (error != null) {
+                    failures.put(person.getId(), MigrationQuarantine.failure(error));
+                }
+            } catch (Exception e) {
+                MigrationQuarantine.Failure failure = MigrationQuarantine.failure(e);
+                failures.put(person.getId(), failure);
+                if (failure.getReason() == MigrationDeadLetter.FailureReason.TRANSIENT) {
+                    unavailable = failure;
+                }
+            }
+        }
+        return failures;
+    }
+    
+    // Count the outcome of written rows and quarantine the failed ones; returns the ids that were migrated
+    private List<Long> settle(List<Person> rows, Map<Long, MigrationQuarantine.Failure> failures, MigrationResult result) {
+        List<Long> migrated = new ArrayList<>(rows.size());
+        for (Person person : rows) {
+            MigrationQuarantine.Failure failure = failures.get(person.getId());
+            if (failure == null) {
+                result.incrementMigrated();
+                migrated.add(person.getId());
+            } else {
+                result.incrementFailed();
+                result.addError("Failed to migrate person ID " + person.getId() + " (" + failure.getReason() + "): " + failure.getMessage());
+            }
+        }
+        migrationQuarantine.record(failures);
+        return migrated;
+    }
+    
+    /**
+     * Re-migrate only the quarantined rows, in bulk. Rows failing with a transient error are retried
+     * with exponential backoff; rows that still fail stay quarantined with another attempt counted.
+     * Every bulk write is paced by the MigrationThrottle like the chunks of a full migration.
+     */
+    public MigrationResult retryQuarantined() {
+        MigrationResult result = new MigrationResult();
+        
+        try {
+            long lastId = Long.MIN_VALUE;
+            while (true) {
+                long readStart = System.nanoTime();
+                List<MigrationDeadLetter> batch = migrationQuarantine.findAfter(lastId, migrationThrottle.getChunkSize());
+                if (batch.isEmpty()) {
+                    break;
+                }
+                lastId = batch.get(batch.size() - 1).getPostgresId();
+                result.setTotalRecords(result.getTotalRecords() + batch.size());
+                
+                List<Long> ids = new ArrayList<>(batch.size());
+                for (MigrationDeadLetter deadLetter : batch) {
+                    ids.add(deadLetter.getPostgresId());
+                }
+                List<Person> rows = personRepository.findAllById(ids);
+                long readNanos = System.nanoTime() - readStart;
+                
+                // Rows deleted from PostgreSQL since they failed have nothing left to migrate
+                List<Long> done = new ArrayList<>(ids);
+                for (Person person : rows) {
+                    done.remove(person.getId());
+                }
+                result.setSkipped(result.getSkipped() + done.size());
+                
+                done.addAll(retryWithBackoff(rows, readNanos, result));
+                migrationQuarantine.release(done);
+            }
+            
+            result.setSuccess(true);
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.setSuccess(false);
+            result.addError("Retry interrupted");
+        } catch (Exception e) {
+            result.setSuccess(false);
+            result.addError("Retry failed: " + e.getMessage());
+        }
+        
+        return result;
+    }
+    
+    // The chunk's read time is reported with the first attempt; backoff sleeps are not counted as write time
+    private List<Long> retryWithBackoff(List<Person> rows, long readNanos, MigrationResult result) throws InterruptedException {
+        List<Long> migrated = new ArrayList<>(rows.size());
+        List<Person> pending = rows;
+        long backoffMs = retryInitialBackoffMs;
+        
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            long writeStart = System.nanoTime();
+            Map<Long, MigrationQuarantine.Failure> failures = write(pending);
+            migrationThrottle.afterChunk(pending.size(), attempt == 1 ? readNanos : 0, System.nanoTime() - writeStart);
+            
+            List<Person> retry = new ArrayList<>();
+            if (attempt < retryMaxAttempts) {
+                for (Person person : pending) {
+                    MigrationQuarantine.Failure failure = failures.get(person.getId());
+                    if (failure != null && failure.getReason() == MigrationDeadLetter.FailureReason.TRANSIENT) {
+                        retry.add(person);
+                    }
+                }
+            }
+            
+            List<Person> settled = new ArrayList<>(pending);
+            settled.removeAll(retry);
+            for (Person person : retry) {
+                failures.remove(person.getId());
+            }
+            migrated.addAll(settle(settled, failures, result));
+            
+            if (!retry.isEmpty()) {
+                Thread.sleep(backoffMs);
+                backoffMs = Math.min(retryMaxBackoffMs, backoffMs * 2);
+            }
+            pending = retry;
+        }
+        return migrated;
+    }
+    
     /**
      * Migrate a single person by PostgreSQL ID
      */
@@ -145,7 +337,8 @@ public class MigrationService {
             long postgresCount = personRepository.count();
             result.setPostgresCount(postgresCount);
             
-            // Count records in MongoDB
+            // Count records in MongoDB, on the primary: verify usually follows migrate-all,
+            // and a lagging secondary would report the rows just migrated as missing
             long mongoCount = personMongoRepository.count();
             result.setMongoCount(mongoCount);
             
@@ -220,12 +413,15 @@ public class MigrationService {
     
     // Inner classes for result objects
     public static class MigrationResult {
+        private static final int MAX_REPORTED_ERRORS = 100;
+        
         private boolean success;
         private int totalRecords;
         private int migrated;
         private int skipped;
         private int failed;
         private List<String> errors = new java.util.ArrayList<>();
+        private int omittedErrors;
         
         // Getters and setters
         public boolean isSuccess() { return success; }
@@ -246,11 +442,22 @@ public class MigrationService {
         public List<String> getErrors() { return errors; }
         public void setErrors(List<String> errors) { this.errors = errors; }
         
+        public int getOmittedErrors() { return omittedErrors; }
+        public void setOmittedErrors(int omittedErrors) { this.omittedErrors = omittedErrors; }
+        
         // Helper methods
         public void incrementMigrated() { this.migrated++; }
         public void incrementSkipped() { this.skipped++; }
         public void incrementFailed() { this.failed++; }
-        public void addError(String error) { this.errors.add(error); }
+        
+        // Only the first errors are kept; the full details of failed rows are in the quarantine
+        public void addError(String error) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+            } else {
+                omittedErrors++;
+            }
+        }
     }
     
     public static class MigrationVerificationResult {
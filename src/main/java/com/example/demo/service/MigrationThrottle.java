@@ -0,0 +1,163 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces chunked migrations so they can run against a live primary.
+ *
+ * The chunk size follows AIMD against a latency budget: when the smoothed source read or MongoDB
+ * write latency of a chunk exceeds the budget, the chunk size halves and the migration pauses for
+ * as long as the chunk took; otherwise the chunk size grows by minChunkSize. Independently, an
+ * optional rows/s cap (changeable at runtime) spaces chunks out.
+ */
+@Component
+public class MigrationThrottle {
+    
+    private static final double LATENCY_SMOOTHING = 0.3;
+    
+    private final int minChunkSize;
+    private final int maxChunkSize;
+    
+    private volatile long latencyBudgetMs;
+    private volatile double maxRowsPerSecond;
+    
+    private int chunkSize;
+    private double smoothedReadNanos;
+    private double smoothedWriteNanos;
+    private long chunks;
+    private long throttledChunks;
+    private long pausedMs;
+    
+    public MigrationThrottle(@Value("${app.migration.chunk-size:500}") int chunkSize,
+                             @Value("${app.migration.min-chunk-size:50}") int minChunkSize,
+                             @Value("${app.migration.max-chunk-size:5000}") int maxChunkSize,
+                             @Value("${app.migration.latency-budget-ms:50}") long latencyBudgetMs,
+                             @Value("${app.migration.max-rows-per-second:0}") double maxRowsPerSecond) {
+        if (minChunkSize < 1 || minChunkSize > maxChunkSize) {
+            throw new IllegalArgumentException("Invalid migration chunk sizes: " + minChunkSize + ".." + maxChunkSize);
+        }
+        this.minChunkSize = minChunkSize;
+        this.maxChunkSize = maxChunkSize;
+        this.chunkSize = Math.max(minChunkSize, Math.min(maxChunkSize, chunkSize));
+        setLatencyBudgetMs(latencyBudgetMs);
+        setMaxRowsPerSecond(maxRowsPerSecond);
+    }
+    
+    public synchronized int getChunkSize() {
+        return chunkSize;
+    }
+    
+    /**
+     * Record a finished chunk, adjust the chunk size and sleep as long as the budget and rate cap require
+     */
+    public void afterChunk(int rows, long readNanos, long writeNanos) throws InterruptedException {
+        long busyNanos = readNanos + writeNanos;
+        long pauseNanos = 0;
+        
+        synchronized (this) {
+            chunks++;
+            smoothedReadNanos = smooth(smoothedReadNanos, readNanos);
+            smoothedWriteNanos = smooth(smoothedWriteNanos, writeNanos);
+            
+            if (Math.max(smoothedReadNanos, smoothedWriteNanos) > TimeUnit.MILLISECONDS.toNanos(latencyBudgetMs)) {
+                chunkSize = Math.max(minChunkSize, chunkSize / 2);
+                pauseNanos = busyNanos;
+                throttledChunks++;
+            } else {
+                chunkSize = Math.min(maxChunkSize, chunkSize + minChunkSize);
+            }
+        }
+        
+        double rate = maxRowsPerSecond;
+        if (rate > 0) {
+            long minimumNanos = (long) (rows / rate * TimeUnit.SECONDS.toNanos(1));
+            pauseNanos = Math.max(pauseNanos, minimumNanos - busyNanos);
+        }
+        
+        if (pauseNanos > 0) {
+            synchronized (this) {
+                pausedMs += TimeUnit.NANOSECONDS.toMillis(pauseNanos);
+            }
+            TimeUnit.NANOSECONDS.sleep(pauseNanos);
+        }
+    }
+    
+    private static double smooth(double smoothed, long sample) {
+        return smoothed == 0 ? sample : smoothed + LATENCY_SMOOTHING * (sample - smoothed);
+    }
+    
+    public long getLatencyBudgetMs() {
+        return latencyBudgetMs;
+    }
+    
+    public void setLatencyBudgetMs(long latencyBudgetMs) {
+        if (latencyBudgetMs < 1) {
+            throw new IllegalArgumentException("Migration latency budget must be at least 1 ms");
+        }
+        this.latencyBudgetMs = latencyBudgetMs;
+    }
+    
+    public double getMaxRowsPerSecond() {
+        return maxRowsPerSecond;
+    }
+    
+    /**
+     * Cap migration throughput; 0 removes the cap
+     */
+    public void setMaxRowsPerSecond(double maxRowsPerSecond) {
+        if (maxRowsPerSecond < 0 || Double.isNaN(maxRowsPerSecond) || Double.isInfinite(maxRowsPerSecond)) {
+            throw new IllegalArgumentException("Migration rate cap must be 0 (unlimited) or a positive number of rows per second");
+        }
+        this.maxRowsPerSecond = maxRowsPerSecond;
+    }
+    
+    public synchronized Stats getStats() {
+        return new Stats(chunkSize, minChunkSize, maxChunkSize, latencyBudgetMs, maxRowsPerSecond,
+            TimeUnit.NANOSECONDS.toMillis((long) smoothedReadNanos),
+            TimeUnit.NANOSECONDS.toMillis((long) smoothedWriteNanos),
+            chunks, throttledChunks, pausedMs);
+    }
+    
+    // Point-in-time view of the throttle
+    public static class Stats {
+        private final int chunkSize;
+        private final int minChunkSize;
+        private final int maxChunkSize;
+        private final long latencyBudgetMs;
+        private final double maxRowsPerSecond;
+        private final long smoothedReadMs;
+        private final long smoothedWriteMs;
+        private final long chunks;
+        private final long throttledChunks;
+        private final long pausedMs;
+        
+        public Stats(int chunkSize, int minChunkSize, int maxChunkSize, long latencyBudgetMs, double maxRowsPerSecond,
+                     long smoothedReadMs, long smoothedWriteMs, long chunks, long throttledChunks, long pausedMs) {
+            this.chunkSize = chunkSize;
+            this.minChunkSize = minChunkSize;
+            this.maxChunkSize = maxChunkSize;
+            this.latencyBudgetMs = latencyBudgetMs;
+            this.maxRowsPerSecond = maxRowsPerSecond;
+            this.smoothedReadMs = smoothedReadMs;
+            this.smoothedWriteMs = smoothedWriteMs;
+            this.chunks = chunks;
+            this.throttledChunks = throttledChunks;
+            this.pausedMs = pausedMs;
+        }
+        
+        // Getters
+        public int getChunkSize() { return chunkSize; }
+        public int getMinChunkSize() { return minChunkSize; }
+        public int getMaxChunkSize() { return maxChunkSize; }
+        public long getLatencyBudgetMs() { return latencyBudgetMs; }
+        public double getMaxRowsPerSecond() { return maxRowsPerSecond; }
+        public long getSmoothedReadMs() { return smoothedReadMs; }
+        public long getSmoothedWriteMs() { return smoothedWriteMs; }
+        public long getChunks() { return chunks; }
+        public long getThrottledChunks() { return throttledChunks; }
+        public long getPausedMs() { return pausedMs; }
+    }
+}
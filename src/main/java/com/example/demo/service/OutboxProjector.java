@@ -0,0 +1,162 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Person;
+import com.example.demo.entity.PersonOutboxEvent;
+import com.example.demo.repository.PersonOutboxRepository;
+import com.example.demo.repository.PersonRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Drains person_outbox into MongoDB in batches.
+ *
+ * Each batch runs in one PostgreSQL transaction: claim the oldest events with FOR UPDATE SKIP LOCKED
+ * (so several instances share the work), take a per-person advisory lock, read the current people
+ * rows and bulk-apply them to MongoDB, then delete the applied events. Applying the current row
+ * rather than the event payload keeps MongoDB converging on the latest state even when instances
+ * process events of the same person out of order. A crash before commit re-delivers the batch,
+ * which the idempotent upserts absorb. Failed events are retried with exponential backoff until
+ * max-attempts, after which they stay in the table as stuck.
+ */
+@Service
+@Lazy(false)
+@ConditionalOnProperty(name = "app.outbox.enabled", havingValue = "true")
+public class OutboxProjector {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OutboxProjector.class);
+    
+    private final PersonOutboxRepository personOutboxRepository;
+    private final PersonRepository personRepository;
+    private final PersonMongoWriter personMongoWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final long maxRetryBackoffMs;
+    
+    public OutboxProjector(PersonOutboxRepository personOutboxRepository,
+                           PersonRepository personRepository,
+                           PersonMongoWriter personMongoWriter,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.outbox.batch-size:500}") int batchSize,
+                           @Value("${app.outbox.max-attempts:10}") int maxAttempts,
+                           @Value("${app.outbox.retry-backoff-ms:1000}") long retryBackoffMs,
+                           @Value("${app.outbox.max-retry-backoff-ms:300000}") long maxRetryBackoffMs) {
+        this.personOutboxRepository = personOutboxRepository;
+        this.personRepository = personRepository;
+        this.personMongoWriter = personMongoWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+        this.maxRetryBackoffMs = maxRetryBackoffMs;
+    }
+    
+    /**
+     * Drain while full batches make progress, then wait for the next poll
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:100}")
+    public void drain() {
+        try {
+            BatchResult result;
+            do {
+                result = transactionTemplate.execute(status -> projectBatch());
+            } while (result.claimed == batchSize && result.applied > 0);
+        } catch (RuntimeException e) {
+            logger.warn("Outbox projection failed, retrying on next poll: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Get the number of pending events and of events that used up max-attempts
+     */
+    public Stats getStats() {
+        return new Stats(personOutboxRepository.count(), personOutboxRepository.countStuck(maxAttempts), maxAttempts);
+    }
+    
+    // Events of people locked elsewhere are left alone and count as neither applied nor failed
+    private BatchResult projectBatch() {
+        List<PersonOutboxEvent> events = personOutboxRepository.claimBatch(maxAttempts, batchSize);
+        if (events.isEmpty()) {
+            return new BatchResult(0, 0);
+        }
+        
+        List<Long> eventIds = events.stream().map(PersonOutboxEvent::getId).collect(Collectors.toList());
+        Set<Long> lockedPersonIds = personOutboxRepository.lockPeople(eventIds).stream()
+            .filter(row -> Boolean.TRUE.equals(row[1]))
+            .map(row -> ((Number) row[0]).longValue())
+            .collect(Collectors.toSet());
+            
+        // The current PostgreSQL row is the state to replicate; a missing row means the person was deleted
+        Map<Long, Person> currentRows = personRepository.findAllById(lockedPersonIds).stream()
+            .collect(Collectors.toMap(Person::getId, Function.identity()));
+        Set<Long> deletedPersonIds = new HashSet<>(lockedPersonIds);
+        deletedPersonIds.removeAll(currentRows.keySet());
+        
+        Set<Long> failedPersonIds = personMongoWriter.replicate(currentRows.values(), deletedPersonIds);
+        
+        List<Long> appliedEventIds = new ArrayList<>();
+        List<Long> failedEventIds = new ArrayList<>();
+        for (PersonOutboxEvent event : events) {
+            if (!lockedPersonIds.contains(event.getPersonId())) {
+                continue;  // another instance is applying this person; the event stays for a later batch
+            }
+            if (failedPersonIds.contains(event.getPersonId())) {
+                failedEventIds.add(event.getId());
+            } else {
+                appliedEventIds.add(event.getId());
+            }
+        }
+        
+        if (!appliedEventIds.isEmpty()) {
+            personOutboxRepository.deleteAllByIdInBatch(appliedEventIds);
+        }
+        if (!failedEventIds.isEmpty()) {
+            personOutboxRepository.recordFailedAttempt(failedEventIds, retryBackoffMs, maxRetryBackoffMs);
+        }
+        return new BatchResult(events.size(), appliedEventIds.size());
+    }
+    
+    private static class BatchResult {
+        private final int claimed;
+        private final int applied;
+        
+        BatchResult(int claimed, int applied) {
+            this.claimed = claimed;
+            this.applied = applied;
+        }
+    }
+    
+    // Inner class for outbox statistics
+    public static class Stats {
+        private final long pending;
+        private final long stuck;
+        private final int maxAttempts;
+        
+        public Stats(long pending, long stuck, int maxAttempts) {
+            this.pending = pending;
+            this.stuck = stuck;
+            this.maxAttempts = maxAttempts;
+        }
+        
+        // Getters
+        public long getPending() { return pending; }
+        public long getStuck() { return stuck; }
+        public int getMaxAttempts() { return maxAttempts; }
+    }
+}
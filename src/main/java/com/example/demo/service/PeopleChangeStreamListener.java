@@ -0,0 +1,196 @@
+package com.example.demo.service;
+
+import com.example.demo.support.PersonMongoChangedEvent;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails the change stream of the people collection and republishes every change as a
+ * {@link PersonMongoChangedEvent}, so caches on every instance see writes made by the others.
+ *
+ * The resume token is stored in the changeStreamResumeTokens collection, and a restarted instance
+ * continues from there. If the stored position is no longer in the oplog, the listener starts
+ * from the current position and invalidates all caches.
+ * Change streams need a replica set (a single-node replica set is enough locally).
+ */
+@Service
+@ConditionalOnProperty(name = "app.mongo.change-stream.enabled", havingValue = "true")
+public class PeopleChangeStreamListener implements SmartLifecycle {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PeopleChangeStreamListener.class);
+    
+    private static final String COLLECTION = "people";
+    private static final String TOKEN_COLLECTION = "changeStreamResumeTokens";
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final int INVALID_RESUME_TOKEN = 260;
+    
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long tokenSaveIntervalMs;
+    private final long retryDelayMs;
+    
+    private volatile boolean running;
+    private Thread worker;
+    
+    public PeopleChangeStreamListener(MongoTemplate mongoTemplate,
+                                      ApplicationEventPublisher eventPublisher,
+                                      @Value("${app.mongo.change-stream.token-save-interval-ms:1000}") long tokenSaveIntervalMs,
+                                      @Value("${app.mongo.change-stream.retry-delay-ms:2000}") long retryDelayMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.tokenSaveIntervalMs = tokenSaveIntervalMs;
+        this.retryDelayMs = retryDelayMs;
+    }
+    
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "people-change-stream");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    private void run() {
+        while (running) {
+            try {
+                tail();
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAM_HISTORY_LOST || e.getErrorCode() == INVALID_RESUME_TOKEN) {
+                    logger.warn("Stored change stream position is no longer available, restarting from now");
+                    deleteResumeToken();
+                } else {
+                    logger.warn("People change stream failed: {}", e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("People change stream failed: {}", e.getMessage());
+            }
+            
+            // Anything may have changed while the stream was down
+            eventPublisher.publishEvent(PersonMongoChangedEvent.all());
+            sleep(retryDelayMs);
+        }
+    }
+    
+    private void tail() {
+        ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(COLLECTION)
+            .watch()
+            .maxAwaitTime(1, TimeUnit.SECONDS);
+        BsonDocument resumeToken = loadResumeToken();
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+        
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            logger.info("Listening to the {} change stream{}", COLLECTION, resumeToken != null ? " from the stored resume token" : "");
+            long lastSaved = System.currentTimeMillis();
+            
+            while (running) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change != null) {
+                    publish(change);
+                }
+                
+                long now = System.currentTimeMillis();
+                if (now - lastSaved >= tokenSaveIntervalMs && cursor.getResumeToken() != null) {
+                    saveResumeToken(cursor.getResumeToken());
+                    lastSaved = now;
+                }
+            }
+            
+            if (cursor.getResumeToken() != null) {
+                saveResumeToken(cursor.getResumeToken());
+            }
+        }
+    }
+    
+    private void publish(ChangeStreamDocument<Document> change) {
+        OperationType operationType = change.getOperationType();
+        if (operationType == OperationType.INVALIDATE || operationType == OperationType.DROP) {
+            eventPublisher.publishEvent(PersonMongoChangedEvent.all());
+            return;
+        }
+        
+        String documentId = change.getDocumentKey() != null ? describeId(change.getDocumentKey().get("_id")) : null;
+        String role = operationType == OperationType.INSERT && change.getFullDocument() != null
+            ? change.getFullDocument().getString("role")
+            : null;
+        eventPublisher.publishEvent(new PersonMongoChangedEvent(operationType.getValue(), documentId, role));
+    }
+    
+    private static String describeId(BsonValue id) {
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+    
+    private BsonDocument loadResumeToken() {
+        Document stored = mongoTemplate.findById(COLLECTION, Document.class, TOKEN_COLLECTION);
+        if (stored == null || stored.getString("token") == null) {
+            return null;
+        }
+        return BsonDocument.parse(stored.getString("token"));
+    }
+    
+    private void saveResumeToken(BsonDocument resumeToken) {
+        mongoTemplate.upsert(
+            Query.query(Criteria.where("_id").is(COLLECTION)),
+            Update.update("token", resumeToken.toJson()).set("updatedAt", new Date()),
+            TOKEN_COLLECTION);
+    }
+    
+    private void deleteResumeToken() {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(COLLECTION)), TOKEN_COLLECTION);
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
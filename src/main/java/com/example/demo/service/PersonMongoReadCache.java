@@ -0,0 +1,92 @@
+package com.example.demo.service;
+
+import com.example.demo.support.PersonMongoChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache for the MongoDB role aggregates (distinct roles and counts per role).
+ *
+ * Entries are dropped on {@link PersonMongoChangedEvent}s, which the change stream listener publishes
+ * for writes made by any instance. Only with the change stream enabled is a long TTL safe; without it
+ * the cache is a pass-through.
+ */
+@Service
+public class PersonMongoReadCache {
+    
+    private static final String ROLES_KEY = "roles";
+    private static final String COUNT_KEY_PREFIX = "count:";
+    
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final long ttlMillis;
+    
+    public PersonMongoReadCache(@Value("${app.mongo.change-stream.enabled:false}") boolean changeStreamEnabled,
+                                @Value("${app.mongo.cache.ttl-ms:600000}") long ttlMillis) {
+        this.ttlMillis = changeStreamEnabled ? ttlMillis : 0;
+    }
+    
+    public boolean isCaching() {
+        return ttlMillis > 0;
+    }
+    
+    @SuppressWarnings("unchecked")
+    public List<String> getRoles(Supplier<List<String>> loader) {
+        return (List<String>) get(ROLES_KEY, loader::get);
+    }
+    
+    public long getCountByRole(String role, Supplier<Long> loader) {
+        return (Long) get(COUNT_KEY_PREFIX + role, loader::get);
+    }
+    
+    @EventListener
+    public void onPersonChanged(PersonMongoChangedEvent event) {
+        generation.incrementAndGet();
+        if ("insert".equals(event.getOperation()) && event.getRole() != null) {
+            entries.remove(ROLES_KEY);
+            entries.remove(COUNT_KEY_PREFIX + event.getRole());
+        } else {
+            entries.clear();
+        }
+    }
+    
+    private Object get(String key, Supplier<Object> loader) {
+        if (ttlMillis <= 0) {
+            return loader.get();
+        }
+        
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt > now) {
+            return entry.value;
+        }
+        
+        // Do not store a value whose load overlapped an invalidation
+        long loadGeneration = generation.get();
+        Object value = loader.get();
+        if (generation.get() == loadGeneration) {
+            Entry loaded = new Entry(value, now + ttlMillis);
+            entries.put(key, loaded);
+            if (generation.get() != loadGeneration) {
+                entries.remove(key, loaded);
+            }
+        }
+        return value;
+    }
+    
+    private static class Entry {
+        private final Object value;
+        private final long expiresAt;
+        
+        Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Person;
+import com.example.demo.entity.PersonMongo;
+import com.mongodb.bulk.BulkWriteError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk replication of PostgreSQL people into MongoDB, keyed by postgresId.
+ * Upserts overwrite name, role, email and createdAt, so re-applying the same rows is harmless.
+ * Every operation filters on the shard key, so on a sharded collection mongos splits the
+ * unordered batch by shard and the shards apply their parts in parallel.
+ */
+@Service
+public class PersonMongoWriter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PersonMongoWriter.class);
+    
+    private final MongoTemplate mongoTemplate;
+    
+    public PersonMongoWriter(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+    
+    public Set<Long> upsertAll(Collection<Person> rows) {
+        return replicate(rows, Collections.emptyList());
+    }
+    
+    /**
+     * Like upsertAll, but returns the write error of each failed row keyed by postgresId
+     */
+    public Map<Long, BulkWriteError> upsertAllWithErrors(Collection<Person> rows) {
+        return execute(rows, Collections.emptyList());
+    }
+    
+    /**
+     * Upsert the given rows and remove the given postgresIds in one unordered bulk write.
+     * Returns the postgresIds whose operation failed; all others were applied.
+     */
+    public Set<Long> replicate(Collection<Person> upserts, Collection<Long> deletedPostgresIds) {
+        return new HashSet<>(execute(upserts, deletedPostgresIds).keySet());
+    }
+    
+    private Map<Long, BulkWriteError> execute(Collection<Person> upserts, Collection<Long> deletedPostgresIds) {
+        if (upserts.isEmpty() && deletedPostgresIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PersonMongo.class);
+        List<Long> operationIds = new ArrayList<>(upserts.size() + deletedPostgresIds.size());
+        for (Person person : upserts) {
+            Update update = new Update()
+                .set("name", person.getName())
+                .set("role", person.getRole())
+                .set("email", person.getEmail())
+                .set("createdAt", person.getCreatedAt());
+            bulk.upsert(byPostgresId(person.getId()), update);
+            operationIds.add(person.getId());
+        }
+        for (Long postgresId : deletedPostgresIds) {
+            bulk.remove(byPostgresId(postgresId));
+            operationIds.add(postgresId);
+        }
+        
+        try {
+            bulk.execute();
+            return Collections.emptyMap();
+        } catch (BulkOperationException e) {
+            Map<Long, BulkWriteError> failed = new HashMap<>();
+            for (BulkWriteError error : e.getErrors()) {
+                failed.put(operationIds.get(error.getIndex()), error);
+            }
+            logger.warn("{} of {} MongoDB writes failed, first error: {}",
+                failed.size(), operationIds.size(), e.getErrors().get(0).getMessage());
+            return failed;
+        }
+    }
+    
+    private static Query byPostgresId(Long postgresId) {
+        return Query.query(Criteria.where("postgresId").is(postgresId));
+    }
+}
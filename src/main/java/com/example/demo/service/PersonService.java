@@ -0,0 +1,77 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Person;
+import com.example.demo.entity.PersonOutboxEvent;
+import com.example.demo.repository.PersonOutboxRepository;
+import com.example.demo.repository.PersonRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * PostgreSQL writes for people. With app.outbox.enabled each change also writes a person_outbox
+ * row in the same transaction, which {@link OutboxProjector} replicates to MongoDB.
+ */
+@Service
+public class PersonService {
+    
+    private final PersonRepository personRepository;
+    private final PersonOutboxRepository personOutboxRepository;
+    private final boolean outboxEnabled;
+    
+    @Autowired
+    public PersonService(PersonRepository personRepository,
+                         PersonOutboxRepository personOutboxRepository,
+                         @Value("${app.outbox.enabled:false}") boolean outboxEnabled) {
+        this.personRepository = personRepository;
+        this.personOutboxRepository = personOutboxRepository;
+        this.outboxEnabled = outboxEnabled;
+    }
+    
+    @Transactional
+    public Person createPerson(Person person) {
+        person.setCreatedAt(LocalDateTime.now());
+        Person savedPerson = personRepository.save(person);
+        recordChange(savedPerson.getId(), "create");
+        return savedPerson;
+    }
+    
+    @Transactional
+    public Optional<Person> updatePerson(Long id, Person personDetails) {
+        Optional<Person> personOptional = personRepository.findById(id);
+        
+        if (!personOptional.isPresent()) {
+            return Optional.empty();
+        }
+        
+        Person person = personOptional.get();
+        person.setName(personDetails.getName());
+        person.setRole(personDetails.getRole());
+        person.setEmail(personDetails.getEmail());
+        
+        Person updatedPerson = personRepository.save(person);
+        recordChange(id, "update");
+        return Optional.of(updatedPerson);
+    }
+    
+    @Transactional
+    public boolean deletePerson(Long id) {
+        if (!personRepository.existsById(id)) {
+            return false;
+        }
+        
+        personRepository.deleteById(id);
+        recordChange(id, "delete");
+        return true;
+    }
+    
+    private void recordChange(Long personId, String operation) {
+        if (outboxEnabled) {
+            personOutboxRepository.save(new PersonOutboxEvent(personId, operation));
+        }
+    }
+}
@@ -0,0 +1,469 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Person;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary layout of a people snapshot file.
+ *
+ * The file is a 16-byte header (magic, version, random export id) followed by self-contained row groups. Each row group has a
+ * 40-byte header (row count, first/last id, raw and compressed length, CRC32 of those header fields
+ * and the compressed payload) and a deflated payload that stores the rows column by column:
+ * ids (delta varints), roles (dictionary + indexes), names, emails and createdAt (null bitmaps,
+ * zigzag-delta epoch seconds + nanos). A torn or corrupt group fails its checksum, which is what
+ * makes exports resumable after the last good group.
+ */
+final class PersonSnapshotFormat {
+    
+    static final int FILE_HEADER_SIZE = 16;
+    static final int GROUP_HEADER_SIZE = 40;
+    private static final int GROUP_CHECKED_SIZE = 32;   // group header bytes before the CRC
+    
+    private static final int FILE_MAGIC = 0x50534E50;   // "PSNP"
+    private static final int GROUP_MAGIC = 0x52475250;  // "RGRP"
+    private static final int VERSION = 2;               // 2: the group CRC also covers the group header
+    
+    private PersonSnapshotFormat() {
+    }
+    
+    /**
+     * Write the file header to an empty file, or check it on an existing one
+     */
+    static void writeOrCheckFileHeader(FileChannel channel) throws IOException {
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            header.putInt(FILE_MAGIC).putInt(VERSION).putLong(new SecureRandom().nextLong()).flip();
+            writeFully(channel, header, 0);
+        } else {
+            checkFileHeader(channel);
+        }
+    }
+    
+    static void checkFileHeader(FileChannel channel) throws IOException {
+        if (channel.size() < FILE_HEADER_SIZE) {
+            throw new IllegalStateException("Not a people snapshot file (too short)");
+        }
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_HEADER_SIZE);
+        if (header.getInt() != FILE_MAGIC) {
+            throw new IllegalStateException("Not a people snapshot file (bad magic)");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported snapshot version " + version);
+        }
+    }
+    
+    /**
+     * CRC32 of the file header; differs between exports because the header carries the export id
+     */
+    static long fileHeaderChecksum(FileChannel channel) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_HEADER_SIZE));
+        return crc.getValue();
+    }
+    
+    /**
+     * Walk the row groups, verifying checksums, and cut off anything after the last valid group
+     */
+    static ScanResult scanAndTruncate(FileChannel channel) throws IOException {
+        ScanResult result = new ScanResult();
+        long position = FILE_HEADER_SIZE;
+        long size = channel.size();
+        
+        while (position + GROUP_HEADER_SIZE <= size) {
+            GroupHeader header = readGroupHeader(channel, position);
+            if (header == null) {
+                break;
+            }
+            long end = position + GROUP_HEADER_SIZE + header.compressedLength;
+            if (end > size || !checksumMatches(channel, position, header)) {
+                break;
+            }
+            result.rowGroups++;
+            result.rowCount += header.rowCount;
+            result.lastId = header.lastId;
+            position = end;
+        }
+        
+        if (position < size) {
+            result.truncatedBytes = size - position;
+            channel.truncate(position);
+        }
+        return result;
+    }
+    
+    /**
+     * Append one row group; rows must be in ascending id order
+     */
+    static long writeRowGroup(FileChannel channel, List<Person> rows) throws IOException {
+        byte[] raw = encodeColumns(rows);
+        byte[] compressed = deflate(raw);
+        
+        ByteBuffer header = ByteBuffer.allocate(GROUP_HEADER_SIZE);
+        header.putInt(GROUP_MAGIC)
+            .putInt(rows.size())
+            .putLong(rows.get(0).getId())
+            .putLong(rows.get(rows.size() - 1).getId())
+            .putInt(raw.length)
+            .putInt(compressed.length);
+        header.putLong(checksum(header.duplicate().flip(), ByteBuffer.wrap(compressed)))
+            .flip();
+            
+        long position = channel.size();
+        writeFully(channel, header, position);
+        writeFully(channel, ByteBuffer.wrap(compressed), position + GROUP_HEADER_SIZE);
+        return GROUP_HEADER_SIZE + compressed.length;
+    }
+    
+    /**
+     * Map, verify and decode the row group starting at the given position
+     */
+    static RowGroup readRowGroup(FileChannel channel, long position) throws IOException {
+        if (position + GROUP_HEADER_SIZE > channel.size()) {
+            throw new IllegalStateException("Incomplete row group at offset " + position);
+        }
+        GroupHeader header = readGroupHeader(channel, position);
+        if (header == null || position + GROUP_HEADER_SIZE + header.compressedLength > channel.size()) {
+            throw new IllegalStateException("Incomplete row group at offset " + position);
+        }
+        
+        MappedByteBuffer payload = channel.map(
+            FileChannel.MapMode.READ_ONLY, position + GROUP_HEADER_SIZE, header.compressedLength);
+        if (checksum(header.checkedFields, payload.duplicate()) != header.crc) {
+            throw new IllegalStateException("Checksum mismatch in row group at offset " + position);
+        }
+        
+        byte[] raw = inflate(payload, header.rawLength);
+        List<Person> rows = decodeColumns(ByteBuffer.wrap(raw), header.rowCount);
+        return new RowGroup(rows, position + GROUP_HEADER_SIZE + header.compressedLength);
+    }
+    
+    private static GroupHeader readGroupHeader(FileChannel channel, long position) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, GROUP_HEADER_SIZE);
+        if (buffer.getInt() != GROUP_MAGIC) {
+            return null;
+        }
+        GroupHeader header = new GroupHeader();
+        header.rowCount = buffer.getInt();
+        header.firstId = buffer.getLong();
+        header.lastId = buffer.getLong();
+        header.rawLength = buffer.getInt();
+        header.compressedLength = buffer.getInt();
+        header.crc = buffer.getLong();
+        header.checkedFields = buffer.duplicate().position(0).limit(GROUP_CHECKED_SIZE);
+        if (header.rowCount <= 0 || header.rawLength < 0 || header.compressedLength < 0) {
+            return null;
+        }
+        return header;
+    }
+    
+    private static boolean checksumMatches(FileChannel channel, long position, GroupHeader header) throws IOException {
+        ByteBuffer payload = channel.map(FileChannel.MapMode.READ_ONLY, position + GROUP_HEADER_SIZE, header.compressedLength);
+        return checksum(header.checkedFields, payload) == header.crc;
+    }
+    
+    // A corrupt row count or id range must fail the check too, or a resumed export would continue from a wrong last id
+    private static long checksum(ByteBuffer headerFields, ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(headerFields.duplicate());
+        crc.update(payload);
+        return crc.getValue();
+    }
+    
+    // Column encoding
+    
+    private static byte[] encodeColumns(List<Person> rows) {
+        ColumnWriter out = new ColumnWriter(rows.size() * 48);
+        
+        // ids: first id, then ascending deltas
+        long previousId = 0;
+        for (Person row : rows) {
+            out.writeVarLong(row.getId() - previousId);
+            previousId = row.getId();
+        }
+        
+        // roles: dictionary, then one index per row
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> roles = new ArrayList<>();
+        int[] roleIndexes = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            String role = rows.get(i).getRole();
+            Integer index = dictionary.get(role);
+            if (index == null) {
+                index = roles.size();
+                dictionary.put(role, index);
+                roles.add(role);
+            }
+            roleIndexes[i] = index;
+        }
+        out.writeVarLong(roles.size());
+        for (String role : roles) {
+            out.writeString(role);
+        }
+        for (int roleIndex : roleIndexes) {
+            out.writeVarLong(roleIndex);
+        }
+        
+        // names
+        for (Person row : rows) {
+            out.writeString(row.getName());
+        }
+        
+        // emails: null bitmap, then present values
+        byte[] emailPresent = new byte[(rows.size() + 7) / 8];
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).getEmail() != null) {
+                emailPresent[i >> 3] |= 1 << (i & 7);
+            }
+        }
+        out.writeBytes(emailPresent);
+        for (Person row : rows) {
+            if (row.getEmail() != null) {
+                out.writeString(row.getEmail());
+            }
+        }
+        
+        // createdAt: null bitmap, then zigzag second deltas and nanos
+        byte[] createdPresent = new byte[(rows.size() + 7) / 8];
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).getCreatedAt() != null) {
+                createdPresent[i >> 3] |= 1 << (i & 7);
+            }
+        }
+        out.writeBytes(createdPresent);
+        long previousSecond = 0;
+        for (Person row : rows) {
+            LocalDateTime createdAt = row.getCreatedAt();
+            if (createdAt != null) {
+                long second = createdAt.toEpochSecond(ZoneOffset.UTC);
+                out.writeZigZag(second - previousSecond);
+                out.writeVarLong(createdAt.getNano());
+                previousSecond = second;
+            }
+        }
+        
+        return out.toByteArray();
+    }
+    
+    private static List<Person> decodeColumns(ByteBuffer in, int rowCount) {
+        List<Person> rows = new ArrayList<>(rowCount);
+        
+        long id = 0;
+        for (int i = 0; i < rowCount; i++) {
+            id += readVarLong(in);
+            Person row = new Person();
+            row.setId(id);
+            row.setCreatedAt(null);
+            rows.add(row);
+        }
+        
+        int dictionarySize = (int) readVarLong(in);
+        String[] roles = new String[dictionarySize];
+        for (int i = 0; i < dictionarySize; i++) {
+            roles[i] = readString(in);
+        }
+        for (Person row : rows) {
+            row.setRole(roles[(int) readVarLong(in)]);
+        }
+        
+        for (Person row : rows) {
+            row.setName(readString(in));
+        }
+        
+        byte[] emailPresent = new byte[(rowCount + 7) / 8];
+        in.get(emailPresent);
+        for (int i = 0; i < rowCount; i++) {
+            if ((emailPresent[i >> 3] & (1 << (i & 7))) != 0) {
+                rows.get(i).setEmail(readString(in));
+            }
+        }
+        
+        byte[] createdPresent = new byte[(rowCount + 7) / 8];
+        in.get(createdPresent);
+        long second = 0;
+        for (int i = 0; i < rowCount; i++) {
+            if ((createdPresent[i >> 3] & (1 << (i & 7))) != 0) {
+                second += readZigZag(in);
+                int nano = (int) readVarLong(in);
+                rows.get(i).setCreatedAt(LocalDateTime.ofEpochSecond(second, nano, ZoneOffset.UTC));
+            }
+        }
+        
+        if (in.hasRemaining()) {
+            throw new IllegalStateException("Row group has " + in.remaining() + " unexpected trailing bytes");
+        }
+        return rows;
+    }
+    
+    // Compression
+    
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ColumnWriter out = new ColumnWriter(Math.max(64, raw.length / 2));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(chunk);
+                out.writeBytes(chunk, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+    
+    private static byte[] inflate(ByteBuffer compressed, int rawLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int length = inflater.inflate(raw);
+            if (length != rawLength || !inflater.finished()) {
+                throw new IllegalStateException("Row group payload does not match its declared length");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt row group payload: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+    
+    // Varint helpers
+    
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint in row group");
+    }
+    
+    private static long readZigZag(ByteBuffer in) {
+        long value = readVarLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    private static String readString(ByteBuffer in) {
+        int length = (int) readVarLong(in);
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+    
+    private static class ColumnWriter {
+        private byte[] data;
+        private int size;
+        
+        ColumnWriter(int initialCapacity) {
+            this.data = new byte[Math.max(16, initialCapacity)];
+        }
+        
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+        
+        void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+        
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            writeBytes(bytes, bytes.length);
+        }
+        
+        void writeBytes(byte[] bytes) {
+            writeBytes(bytes, bytes.length);
+        }
+        
+        void writeBytes(byte[] bytes, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, 0, data, size, length);
+            size += length;
+        }
+        
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            data[size++] = (byte) value;
+        }
+        
+        private void ensureCapacity(int additional) {
+            if (size + additional > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + additional));
+            }
+        }
+        
+        byte[] toByteArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+    
+    private static class GroupHeader {
+        private int rowCount;
+        private long firstId;
+        private long lastId;
+        private int rawLength;
+        private int compressedLength;
+        private long crc;
+        private ByteBuffer checkedFields;
+    }
+    
+    static class ScanResult {
+        private int rowGroups;
+        private long rowCount;
+        private long lastId;
+        private long truncatedBytes;
+        
+        int getRowGroups() { return rowGroups; }
+        long getRowCount() { return rowCount; }
+        long getLastId() { return lastId; }
+        long getTruncatedBytes() { return truncatedBytes; }
+    }
+    
+    static class RowGroup {
+        private final List<Person> rows;
+        private final long nextPosition;
+        
+        RowGroup(List<Person> rows, long nextPosition) {
+            this.rows = rows;
+            this.nextPosition = nextPosition;
+        }
+        
+        List<Person> getRows() { return rows; }
+        long getNextPosition() { return nextPosition; }
+    }
+}
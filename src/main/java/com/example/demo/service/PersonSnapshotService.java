@@ -0,0 +1,228 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Person;
+import com.example.demo.repository.PersonRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Offline transfer of the people dataset through snapshot files (see {@link PersonSnapshotFormat}).
+ *
+ * Export streams PostgreSQL rows in id order into row groups and resumes after the last valid
+ * group when re-run. Import bulk-upserts each row group into MongoDB keyed by postgresId and
+ * records its progress next to the file, so an interrupted import continues where it stopped.
+ * The progress is tied to the file's size and header checksum; progress recorded for another
+ * export, or for the same file before an export appended to it, is discarded.
+ */
+@Service
+public class PersonSnapshotService {
+    
+    private final PersonRepository personRepository;
+    private final PersonMongoWriter personMongoWriter;
+    private final Path snapshotDirectory;
+    private final int rowsPerGroup;
+    
+    @Autowired
+    public PersonSnapshotService(PersonRepository personRepository,
+                                 PersonMongoWriter personMongoWriter,
+                                 @Value("${app.snapshot.directory:snapshots}") String snapshotDirectory,
+                                 @Value("${app.snapshot.rows-per-group:10000}") int rowsPerGroup) {
+        this.personRepository = personRepository;
+        this.personMongoWriter = personMongoWriter;
+        this.snapshotDirectory = Paths.get(snapshotDirectory).toAbsolutePath().normalize();
+        this.rowsPerGroup = rowsPerGroup;
+    }
+    
+    /**
+     * Export PostgreSQL people into a snapshot file, continuing an earlier partial export unless restart is set
+     */
+    public SnapshotResult exportSnapshot(String fileName, boolean restart) {
+        SnapshotResult result = new SnapshotResult(fileName);
+        long start = System.currentTimeMillis();
+        
+        try {
+            Path file = resolve(fileName);
+            Files.createDirectories(snapshotDirectory);
+            
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (restart) {
+                    channel.truncate(0);
+                }
+                PersonSnapshotFormat.writeOrCheckFileHeader(channel);
+                
+                // Keep the valid row groups of an earlier run and continue after its last id
+                PersonSnapshotFormat.ScanResult existing = PersonSnapshotFormat.scanAndTruncate(channel);
+                result.setResumed(existing.getRowGroups() > 0);
+                result.setRowGroups(existing.getRowGroups());
+                result.setTotalRecords(existing.getRowCount());
+                
+                long lastId = existing.getLastId();
+                List<Person> rows;
+                do {
+                    rows = personRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, rowsPerGroup));
+                    if (rows.isEmpty()) {
+                        break;
+                    }
+                    PersonSnapshotFormat.writeRowGroup(channel, rows);
+                    lastId = rows.get(rows.size() - 1).getId();
+                    result.addProcessed(rows.size());
+                } while (rows.size() == rowsPerGroup);
+                
+                channel.force(true);
+                result.setFileSizeBytes(channel.size());
+            }
+            
+            result.setSuccess(true);
+            
+        } catch (Exception e) {
+            result.setSuccess(false);
+            result.addError("Snapshot export failed: " + e.getMessage());
+        }
+        
+        result.setDurationMs(System.currentTimeMillis() - start);
+        return result;
+    }
+    
+    /**
+     * Bulk-load a snapshot file into MongoDB, resuming an interrupted import unless restart is set
+     */
+    public SnapshotResult importSnapshot(String fileName, boolean restart) {
+        SnapshotResult result = new SnapshotResult(fileName);
+        long start = System.currentTimeMillis();
+        
+        try {
+            Path file = resolve(fileName);
+            Path progressFile = file.resolveSibling(file.getFileName() + ".progress");
+            if (restart) {
+                Files.deleteIfExists(progressFile);
+            }
+            
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                PersonSnapshotFormat.checkFileHeader(channel);
+                String fileIdentity = channel.size() + " " + PersonSnapshotFormat.fileHeaderChecksum(channel);
+                
+                long position = readProgress(progressFile, fileIdentity);
+                result.setResumed(position > PersonSnapshotFormat.FILE_HEADER_SIZE);
+                
+                while (position < channel.size()) {
+                    PersonSnapshotFormat.RowGroup group = PersonSnapshotFormat.readRowGroup(channel, position);
+                    // Same postgresId mapping as MigrationService; a re-imported row group is simply upserted again
+                    Set<Long> failed = personMongoWriter.upsertAll(group.getRows());
+                    if (!failed.isEmpty()) {
+                        throw new IllegalStateException(failed.size() + " rows of the row group at offset " + position + " failed to import");
+                    }
+                    result.addProcessed(group.getRows().size());
+                    position = group.getNextPosition();
+                    writeProgress(progressFile, fileIdentity, position);
+                }
+                
+                result.setFileSizeBytes(channel.size());
+            }
+            
+            Files.deleteIfExists(progressFile);
+            result.setSuccess(true);
+            
+        } catch (Exception e) {
+            result.setSuccess(false);
+            result.addError("Snapshot import failed: " + e.getMessage());
+        }
+        
+        result.setDurationMs(System.currentTimeMillis() - start);
+        return result;
+    }
+    
+    // Snapshot files live directly in the configured directory; reject anything that escapes it
+    private Path resolve(String fileName) {
+        Path file = snapshotDirectory.resolve(fileName).normalize();
+        if (fileName.isEmpty() || !snapshotDirectory.equals(file.getParent())) {
+            throw new IllegalArgumentException("Invalid snapshot file name: " + fileName);
+        }
+        return file;
+    }
+    
+    // Progress is "<file size> <header CRC> <position>"; anything recorded for a different file starts over
+    private static long readProgress(Path progressFile, String fileIdentity) throws IOException {
+        if (!Files.exists(progressFile)) {
+            return PersonSnapshotFormat.FILE_HEADER_SIZE;
+        }
+        String progress = new String(Files.readAllBytes(progressFile), StandardCharsets.UTF_8).trim();
+        int separator = progress.lastIndexOf(' ');
+        if (separator < 0 || !progress.substring(0, separator).equals(fileIdentity)) {
+            return PersonSnapshotFormat.FILE_HEADER_SIZE;
+        }
+        return Long.parseLong(progress.substring(separator + 1));
+    }
+    
+    private static void writeProgress(Path progressFile, String fileIdentity, long position) throws IOException {
+        Path temporary = progressFile.resolveSibling(progressFile.getFileName() + ".tmp");
+        Files.write(temporary, (fileIdentity + " " + position).getBytes(StandardCharsets.UTF_8));
+        Files.move(temporary, progressFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    // Inner class for snapshot results
+    public static class SnapshotResult {
+        private boolean success;
+        private String fileName;
+        private boolean resumed;
+        private int rowGroups;
+        private long totalRecords;
+        private long processed;
+        private long fileSizeBytes;
+        private long durationMs;
+        private List<String> errors = new java.util.ArrayList<>();
+        
+        public SnapshotResult(String fileName) {
+            this.fileName = fileName;
+        }
+        
+        // Getters and setters
+        public boolean isSuccess() { return success; }
+        public void setSuccess(boolean success) { this.success = success; }
+        
+        public String getFileName() { return fileName; }
+        public void setFileName(String fileName) { this.fileName = fileName; }
+        
+        public boolean isResumed() { return resumed; }
+        public void setResumed(boolean resumed) { this.resumed = resumed; }
+        
+        public int getRowGroups() { return rowGroups; }
+        public void setRowGroups(int rowGroups) { this.rowGroups = rowGroups; }
+        
+        public long getTotalRecords() { return totalRecords; }
+        public void setTotalRecords(long totalRecords) { this.totalRecords = totalRecords; }
+        
+        public long getProcessed() { return processed; }
+        public void setProcessed(long processed) { this.processed = processed; }
+        
+        public long getFileSizeBytes() { return fileSizeBytes; }
+        public void setFileSizeBytes(long fileSizeBytes) { this.fileSizeBytes = fileSizeBytes; }
+        
+        public long getDurationMs() { return durationMs; }
+        public void setDurationMs(long durationMs) { this.durationMs = durationMs; }
+        
+        public List<String> getErrors() { return errors; }
+        public void setErrors(List<String> errors) { this.errors = errors; }
+        
+        // Helper methods
+        public void addProcessed(int rows) {
+            this.processed += rows;
+            this.rowGroups++;
+            this.totalRecords += rows;
+        }
+        public void addError(String error) { this.errors.add(error); }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demo.support;
+
+import com.example.demo.entity.Person;
+import com.example.demo.entity.PersonMongo;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The fields a client may select with ?fields=a,b,c on list endpoints, and how to read them.
+ * Projected rows omit null values.
+ */
+public final class FieldSelection<T> {
+    
+    public static final FieldSelection<Person> PERSON = new FieldSelection<Person>()
+        .field("id", Person::getId)
+        .field("name", Person::getName)
+        .field("role", Person::getRole)
+        .field("email", Person::getEmail)
+        .field("createdAt", Person::getCreatedAt);
+        
+    public static final FieldSelection<PersonMongo> PERSON_MONGO = new FieldSelection<PersonMongo>()
+        .field("id", PersonMongo::getId)
+        .field("name", PersonMongo::getName)
+        .field("role", PersonMongo::getRole)
+        .field("email", PersonMongo::getEmail)
+        .field("createdAt", PersonMongo::getCreatedAt)
+        .field("postgresId", PersonMongo::getPostgresId);
+        
+    private final Map<String, Function<T, Object>> accessors = new LinkedHashMap<>();
+    
+    private FieldSelection() {
+    }
+    
+    private FieldSelection<T> field(String name, Function<T, Object> accessor) {
+        accessors.put(name, accessor);
+        return this;
+    }
+    
+    /**
+     * Parse a fields parameter; null means all fields. Unknown names are rejected with 400.
+     */
+    public List<String> parse(String fields) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return null;
+        }
+        
+        List<String> selected = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!accessors.containsKey(name)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unknown field '" + name + "', expected any of " + accessors.keySet());
+            }
+            if (!selected.contains(name)) {
+                selected.add(name);
+            }
+        }
+        return selected;
+    }
+    
+    public List<Map<String, Object>> project(List<T> rows, List<String> fields) {
+        List<Map<String, Object>> projected = new ArrayList<>(rows.size());
+        for (T row : rows) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (String field : fields) {
+                Object value = accessors.get(field).apply(row);
+                if (value != null) {
+                    values.put(field, value);
+                }
+            }
+            projected.add(values);
+        }
+        return projected;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.demo.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Creates the beans of the datastore this deployment does not use on first use (app.startup.lazy-store).
+ *
+ * Only that store is deferred: its client, template or EntityManagerFactory, its repositories and the
+ * application beans whose constructors need any of them. Everything else, including the store in use,
+ * starts eagerly, so a wiring or connection failure fails the boot instead of the first request.
+ * Beans declared @Lazy(false) are left alone; they need both stores, so with them enabled neither is unused.
+ */
+@Component
+public class LazyStoreInitializer implements BeanFactoryPostProcessor, EnvironmentAware {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LazyStoreInitializer.class);
+    
+    private static final String APPLICATION_PACKAGE = "com.example.demo.";
+    
+    private static final List<String> MONGO_PACKAGES = Arrays.asList(
+        "com.mongodb.",
+        "org.springframework.data.mongodb.",
+        "org.springframework.boot.autoconfigure.mongo.",
+        "org.springframework.boot.autoconfigure.data.mongo.");
+        
+    private static final List<String> POSTGRES_PACKAGES = Arrays.asList(
+        "javax.sql.",
+        "javax.persistence.",
+        "org.hibernate.",
+        "org.postgresql.",
+        "com.zaxxer.hikari.",
+        "org.springframework.jdbc.",
+        "org.springframework.orm.jpa.",
+        "org.springframework.data.jpa.",
+        "org.springframework.boot.jdbc.",
+        "org.springframework.boot.orm.jpa.",
+        "org.springframework.boot.autoconfigure.jdbc.",
+        "org.springframework.boot.autoconfigure.orm.jpa.",
+        "org.springframework.boot.autoconfigure.data.jpa.",
+        "org.springframework.boot.autoconfigure.sql.",
+        // The only transaction manager in this application is the JPA one
+        "org.springframework.transaction.PlatformTransactionManager",
+        "org.springframework.transaction.support.TransactionTemplate");
+        
+    private List<String> storePackages;
+    private String store;
+    
+    @Override
+    public void setEnvironment(Environment environment) {
+        store = environment.getProperty("app.startup.lazy-store", "none");
+        switch (store) {
+            case "mongo":
+                storePackages = MONGO_PACKAGES;
+                break;
+            case "postgres":
+                storePackages = POSTGRES_PACKAGES;
+                break;
+            case "none":
+                storePackages = null;
+                break;
+            default:
+                throw new IllegalStateException("app.startup.lazy-store must be none, mongo or postgres: " + store);
+        }
+    }
+    
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        if (storePackages == null) {
+            return;
+        }
+        
+        Map<Class<?>, Boolean> usesStore = new HashMap<>();
+        int deferred = 0;
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+            if (definition.isLazyInit() || !definition.isSingleton() || isExplicitlyEager(definition)) {
+                continue;
+            }
+            Class<?> beanType = beanFactory.getType(beanName, false);
+            boolean deferrable = beanType != null
+                ? usesStore(beanType, usesStore)
+                : definition.getBeanClassName() != null && inStorePackage(definition.getBeanClassName());
+            if (deferrable) {
+                definition.setLazyInit(true);
+                deferred++;
+            }
+        }
+        logger.info("app.startup.lazy-store={}: {} beans are created on first use", store, deferred);
+    }
+    
+    // @Lazy(false) is recorded as an explicit false; plain definitions leave it unset
+    private static boolean isExplicitlyEager(BeanDefinition definition) {
+        return definition instanceof AbstractBeanDefinition && Boolean.FALSE.equals(((AbstractBeanDefinition) definition).getLazyInit());
+    }
+    
+    // A store type itself, or an application class whose constructor needs one (directly or through other application classes)
+    private boolean usesStore(Class<?> type, Map<Class<?>, Boolean> cache) {
+        Boolean cached = cache.get(type);
+        if (cached != null) {
+            return cached;
+        }
+        cache.put(type, false);  // guards against constructor cycles
+        
+        boolean result = isStoreType(type);
+        if (!result && type.getName().startsWith(APPLICATION_PACKAGE) && !type.isInterface()) {
+            for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+                for (Class<?> parameter : constructor.getParameterTypes()) {
+                    if (!ObjectProvider.class.isAssignableFrom(parameter) && usesStore(parameter, cache)) {
+                        result = true;
+                    }
+                }
+            }
+        }
+        cache.put(type, result);
+        return result;
+    }
+    
+    // Walks superclasses and all super-interfaces, so PersonRepository counts through JpaRepository
+    private boolean isStoreType(Class<?> type) {
+        Set<Class<?>> hierarchy = new HashSet<>();
+        collectHierarchy(type, hierarchy);
+        return hierarchy.stream().anyMatch(candidate -> inStorePackage(candidate.getName()));
+    }
+    
+    private static void collectHierarchy(Class<?> type, Set<Class<?>> hierarchy) {
+        if (type == null || !hierarchy.add(type)) {
+            return;
+        }
+        collectHierarchy(type.getSuperclass(), hierarchy);
+        for (Class<?> implemented : type.getInterfaces()) {
+            collectHierarchy(implemented, hierarchy);
+        }
+    }
+    
+    private boolean inStorePackage(String className) {
+        return storePackages.stream().anyMatch(className::startsWith);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.support;
+
+import com.example.demo.entity.PersonMongo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterLoadEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Replacement for spring.data.mongodb.auto-index-creation when fast startup matters.
+ *
+ * Instead of issuing index builds while the context starts, this lists the existing indexes the
+ * first time a PersonMongo document is read or written and only creates the ones that are missing.
+ * Boots that never touch MongoDB do not connect to it. An index that exists with other options
+ * (unique, sparse) than declared is reported rather than rebuilt.
+ */
+@Component
+@ConditionalOnProperty(name = "app.startup.verify-mongo-indexes", havingValue = "true")
+public class MongoIndexInitializer extends AbstractMongoEventListener<PersonMongo> {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexInitializer.class);
+    
+    private final MongoTemplate mongoTemplate;
+    private final PersonMongoIndexes personMongoIndexes;
+    private final AtomicBoolean checked = new AtomicBoolean();
+    
+    public MongoIndexInitializer(MongoTemplate mongoTemplate, PersonMongoIndexes personMongoIndexes) {
+        this.mongoTemplate = mongoTemplate;
+        this.personMongoIndexes = personMongoIndexes;
+    }
+    
+    @Override
+    public void onBeforeConvert(BeforeConvertEvent<PersonMongo> event) {
+        checkOnce();
+    }
+    
+    @Override
+    public void onAfterLoad(AfterLoadEvent<PersonMongo> event) {
+        checkOnce();
+    }
+    
+    private void checkOnce() {
+        if (checked.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::ensureMissingIndexes, "mongo-index-check");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+    
+    /**
+     * Create the PersonMongo indexes that do not exist yet; already-applied indexes cost one listIndexes call
+     */
+    public void ensureMissingIndexes() {
+        try {
+            IndexOperations indexOperations = mongoTemplate.indexOps(PersonMongo.class);
+            Map<List<String>, IndexInfo> existing = indexOperations.getIndexInfo().stream()
+                .collect(Collectors.toMap(
+                    info -> info.getIndexFields().stream().map(IndexField::getKey).collect(Collectors.toList()),
+                    Function.identity(),
+                    (first, second) -> first));
+            
+            IndexResolver indexResolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+            List<IndexDefinition> definitions = new ArrayList<>();
+            indexResolver.resolveIndexFor(PersonMongo.class).forEach(definitions::add);
+            definitions.addAll(personMongoIndexes.definitions());
+            
+            int created = 0;
+            int mismatched = 0;
+            for (IndexDefinition definition : definitions) {
+                List<String> keys = new ArrayList<>(definition.getIndexKeys().keySet());
+                IndexInfo info = existing.get(keys);
+                if (info == null) {
+                    indexOperations.ensureIndex(definition);
+                    created++;
+                    continue;
+                }
+                
+                boolean unique = definition.getIndexOptions().getBoolean("unique", false);
+                boolean sparse = definition.getIndexOptions().getBoolean("sparse", false);
+                if (info.isUnique() != unique || info.isSparse() != sparse) {
+                    logger.warn("MongoDB index {} has unique={}, sparse={} but unique={}, sparse={} is declared; drop it to have it recreated",
+                        info.getName(), info.isUnique(), info.isSparse(), unique, sparse);
+                    mismatched++;
+                }
+            }
+            
+            logger.info("MongoDB index check complete: {} existing, {} created, {} with different options",
+                existing.size(), created, mismatched);
+        } catch (Exception e) {
+            logger.warn("MongoDB index check failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.support;
+
+/**
+ * A write to the MongoDB people collection, from this instance or observed on the change stream.
+ * Published as an application event so in-process caches can drop what the write made stale.
+ */
+public class PersonMongoChangedEvent {
+    
+    private final String operation;
+    private final String documentId;
+    private final String role;
+    
+    public PersonMongoChangedEvent(String operation, String documentId, String role) {
+        this.operation = operation;
+        this.documentId = documentId;
+        this.role = role;
+    }
+    
+    /**
+     * Event that invalidates everything, e.g. after the change stream lost its position
+     */
+    public static PersonMongoChangedEvent all() {
+        return new PersonMongoChangedEvent("invalidate", null, null);
+    }
+    
+    // Getters
+    public String getOperation() { return operation; }
+    public String getDocumentId() { return documentId; }
+    
+    // Role of an inserted document; null when the previous role is unknown (updates, deletes)
+    public String getRole() { return role; }
+}
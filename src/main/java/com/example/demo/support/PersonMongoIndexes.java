@@ -0,0 +1,60 @@
+package com.example.demo.support;
+
+import com.example.demo.entity.PersonMongo;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * PersonMongo indexes whose options depend on configuration, so they cannot be declared with @Indexed.
+ *
+ * The email index is unique unless app.mongo.sharding.enabled: a sharded collection only enforces
+ * uniqueness on indexes that start with the shard key, so email uniqueness then rests on PostgreSQL.
+ * With auto-index-creation these are created at startup like the annotated indexes (on a sharded
+ * collection by ShardingInitializer, after sharding); MongoIndexInitializer includes them as well.
+ */
+@Component
+public class PersonMongoIndexes implements InitializingBean {
+    
+    private final MongoTemplate mongoTemplate;
+    private final boolean sharded;
+    private final boolean autoIndexCreation;
+    
+    public PersonMongoIndexes(MongoTemplate mongoTemplate,
+                              @Value("${app.mongo.sharding.enabled:false}") boolean sharded,
+                              @Value("${spring.data.mongodb.auto-index-creation:false}") boolean autoIndexCreation) {
+        this.mongoTemplate = mongoTemplate;
+        this.sharded = sharded;
+        this.autoIndexCreation = autoIndexCreation;
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        if (autoIndexCreation && !sharded) {
+            ensureIndexes();
+        }
+    }
+    
+    public List<IndexDefinition> definitions() {
+        Index email = new Index().on("email", Sort.Direction.ASC).named("email");
+        if (!sharded) {
+            email.unique();
+        }
+        return Collections.singletonList(email);
+    }
+    
+    public void ensureIndexes() {
+        IndexOperations indexOperations = mongoTemplate.indexOps(PersonMongo.class);
+        for (IndexDefinition definition : definitions()) {
+            indexOperations.ensureIndex(definition);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.demo.support;
+
+import com.example.demo.entity.PersonMongo;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shards the people collection on the @Sharded key of PersonMongo (hashed postgresId).
+ *
+ * Runs before the web server starts, so an empty collection can be pre-split into
+ * app.mongo.sharding.initial-chunks chunks before the first write, and creates the (then non-unique)
+ * email index afterwards. Startup fails if the collection cannot be sharded, for example while an
+ * older unique email index exists, or if it is already sharded on a different key.
+ */
+@Component
+@Lazy(false)
+@ConditionalOnProperty(name = "app.mongo.sharding.enabled", havingValue = "true")
+public class ShardingInitializer implements InitializingBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ShardingInitializer.class);
+    
+    private final MongoTemplate mongoTemplate;
+    private final PersonMongoIndexes personMongoIndexes;
+    private final int initialChunks;
+    
+    public ShardingInitializer(MongoTemplate mongoTemplate,
+                               PersonMongoIndexes personMongoIndexes,
+                               @Value("${app.mongo.sharding.initial-chunks:0}") int initialChunks) {
+        this.mongoTemplate = mongoTemplate;
+        this.personMongoIndexes = personMongoIndexes;
+        this.initialChunks = initialChunks;
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        shardPeopleCollection();
+    }
+    
+    /**
+     * Shard the collection unless it already is; throws IllegalStateException if that is not possible
+     */
+    public void shardPeopleCollection() {
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext()
+            .getRequiredPersistentEntity(PersonMongo.class);
+        String database = mongoTemplate.getDb().getName();
+        String namespace = database + "." + entity.getCollection();
+        
+        // The shard key document names properties; its values are "hashed" or 1
+        Document key = new Document();
+        for (Map.Entry<String, Object> entry : entity.getShardKey().getDocument().entrySet()) {
+            String field = entity.getRequiredPersistentProperty(entry.getKey()).getFieldName();
+            key.append(field, entry.getValue());
+        }
+        boolean hashed = key.containsValue("hashed");
+        
+        Document existing;
+        try {
+            existing = mongoTemplate.getMongoDatabaseFactory().getMongoDatabase("config")
+                .getCollection("collections").find(new Document("_id", namespace)).first();
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Cannot read the sharding state of " + namespace + " (is this a mongos?)", e);
+        }
+        
+        if (existing != null && !existing.getBoolean("dropped", false)) {
+            if (!key.equals(existing.get("key", Document.class))) {
+                throw new IllegalStateException(namespace + " is sharded on " + existing.get("key") + ", expected " + key);
+            }
+            logger.info("{} is already sharded on {}", namespace, key);
+        } else {
+            IndexOperations indexOperations = mongoTemplate.indexOps(PersonMongo.class);
+            List<String> conflicts = uniqueIndexesWithoutPrefix(indexOperations, key.keySet().iterator().next());
+            if (!conflicts.isEmpty()) {
+                throw new IllegalStateException("Cannot shard " + namespace + ": unique indexes " + conflicts +
+                    " do not start with the shard key " + key + ". Drop them; the email index is recreated without unique");
+            }
+            
+            try {
+                indexOperations.ensureIndex(new CompoundIndexDefinition(key));
+                
+                MongoDatabase admin = mongoTemplate.getMongoDatabaseFactory().getMongoDatabase("admin");
+                admin.runCommand(new Document("enableSharding", database));
+                
+                Document command = new Document("shardCollection", namespace).append("key", key);
+                // Pre-splitting only applies to hashed keys on an empty collection
+                if (hashed && initialChunks > 0 && mongoTemplate.estimatedCount(PersonMongo.class) == 0) {
+                    command.append("numInitialChunks", initialChunks);
+                }
+                admin.runCommand(command);
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Sharding " + namespace + " on " + key + " failed", e);
+            }
+            logger.info("Sharded {} on {}", namespace, key);
+        }
+        
+        personMongoIndexes.ensureIndexes();
+    }
+    
+    // A sharded collection only enforces uniqueness on _id and on indexes prefixed by the shard key
+    private static List<String> uniqueIndexesWithoutPrefix(IndexOperations indexOperations, String shardKeyField) {
+        List<String> conflicts = new ArrayList<>();
+        for (IndexInfo info : indexOperations.getIndexInfo()) {
+            if (info.isUnique() && !"_id_".equals(info.getName())
+                    && !shardKeyField.equals(info.getIndexFields().get(0).getKey())) {
+                conflicts.add(info.getName());
+            }
+        }
+        return conflicts;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.support;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Collapses identical concurrent reads into one call.
+ *
+ * The first caller for a key runs the loader; callers that arrive while it is running wait for and
+ * share its result. Nothing is kept once the call finishes, so results are never older than the flight.
+ * Time spent here, running or joining a flight, counts as the request's {@link DatabaseTime}.
+ */
+@Component
+public class SingleFlight {
+    
+    private final ConcurrentHashMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    
+    /**
+     * Run the loader for this key, or join the call already in flight for an equal key
+     */
+    public <T> T execute(Object key, Supplier<T> loader) {
+        return DatabaseTime.measure(() -> run(key, loader));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> T run(Object key, Supplier<T> loader) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return (T) await(existing);
+        }
+        
+        try {
+            T result = loader.get();
+            inFlight.remove(key, flight);
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+    
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.demo.support;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Marks sampled requests so their SQL is logged by {@link SqlTraceStatementInspector}
+ */
+@Component
+public class SqlTraceFilter extends OncePerRequestFilter {
+    
+    private final SqlTraceSampler sqlTraceSampler;
+    
+    public SqlTraceFilter(SqlTraceSampler sqlTraceSampler) {
+        this.sqlTraceSampler = sqlTraceSampler;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!sqlTraceSampler.begin(request.getMethod() + " " + request.getRequestURI())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            sqlTraceSampler.end();
+        }
+    }
+}
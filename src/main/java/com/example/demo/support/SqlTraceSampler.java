@@ -0,0 +1,56 @@
+package com.example.demo.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which requests get their SQL traced.
+ * The sample rate can be changed at runtime; a rate of 0 disables tracing entirely.
+ */
+@Component
+public class SqlTraceSampler {
+    
+    private static final ThreadLocal<String> TRACED_REQUEST = new ThreadLocal<>();
+    
+    private volatile double sampleRate;
+    
+    public SqlTraceSampler(@Value("${app.sql-trace.sample-rate:0.0}") double sampleRate) {
+        setSampleRate(sampleRate);
+    }
+    
+    /**
+     * Sample the current request; returns true if its statements will be traced
+     */
+    public boolean begin(String requestDescription) {
+        double rate = sampleRate;
+        if (rate <= 0 || ThreadLocalRandom.current().nextDouble() >= rate) {
+            return false;
+        }
+        TRACED_REQUEST.set(requestDescription);
+        return true;
+    }
+    
+    public void end() {
+        TRACED_REQUEST.remove();
+    }
+    
+    /**
+     * Description of the traced request on this thread, or null if the request was not sampled
+     */
+    public String currentTracedRequest() {
+        return TRACED_REQUEST.get();
+    }
+    
+    public double getSampleRate() {
+        return sampleRate;
+    }
+    
+    public void setSampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1 || Double.isNaN(sampleRate)) {
+            throw new IllegalArgumentException("SQL trace sample rate must be between 0.0 and 1.0");
+        }
+        this.sampleRate = sampleRate;
+    }
+}
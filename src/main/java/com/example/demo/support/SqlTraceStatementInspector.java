@@ -0,0 +1,30 @@
+package com.example.demo.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs the SQL of sampled requests only, in place of the global org.hibernate.SQL logger
+ */
+public class SqlTraceStatementInspector implements StatementInspector {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private static final Logger logger = LoggerFactory.getLogger(SqlTraceStatementInspector.class);
+    
+    private final SqlTraceSampler sqlTraceSampler;
+    
+    public SqlTraceStatementInspector(SqlTraceSampler sqlTraceSampler) {
+        this.sqlTraceSampler = sqlTraceSampler;
+    }
+    
+    @Override
+    public String inspect(String sql) {
+        String tracedRequest = sqlTraceSampler.currentTracedRequest();
+        if (tracedRequest != null) {
+            logger.info("[{}] {}", tracedRequest, sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Logs how long the application took to become ready and which startup steps were slowest.
+ *
+ * With app.startup.exit-on-ready=true the JVM exits once the report is written, which is
+ * how a class-data-sharing archive is recorded (-XX:ArchiveClassesAtExit).
+ */
+@Component
+public class StartupReport {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StartupReport.class);
+    
+    private static final int SLOWEST_STEPS = 10;
+    
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        Environment environment = context.getEnvironment();
+        List<String> jvmArguments = ManagementFactory.getRuntimeMXBean().getInputArguments();
+        
+        logger.info("Startup report: ready in {} ms ({} ms since JVM start), profiles={}, lazy-store={}, class-data-sharing={}",
+            event.getTimeTaken() != null ? event.getTimeTaken().toMillis() : -1,
+            ManagementFactory.getRuntimeMXBean().getUptime(),
+            String.join(",", environment.getActiveProfiles()),
+            environment.getProperty("app.startup.lazy-store", "none"),
+            describeClassDataSharing(jvmArguments));
+        
+        ApplicationStartup applicationStartup = context.getApplicationStartup();
+        if (applicationStartup instanceof BufferingApplicationStartup) {
+            StartupTimeline timeline = ((BufferingApplicationStartup) applicationStartup).drainBufferedTimeline();
+            List<StartupTimeline.TimelineEvent> slowest = timeline.getEvents().stream()
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(SLOWEST_STEPS)
+                .collect(Collectors.toList());
+            for (StartupTimeline.TimelineEvent step : slowest) {
+                logger.info("  {} ms  {}", step.getDuration().toMillis(), describeStep(step.getStartupStep()));
+            }
+        }
+        
+        if (environment.getProperty("app.startup.exit-on-ready", Boolean.class, false)) {
+            logger.info("app.startup.exit-on-ready is set, shutting down");
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+    
+    private static String describeClassDataSharing(List<String> jvmArguments) {
+        for (String argument : jvmArguments) {
+            if (argument.startsWith("-XX:ArchiveClassesAtExit")) {
+                return "recording";
+            }
+            if (argument.startsWith("-XX:SharedArchiveFile")) {
+                return "application archive";
+            }
+        }
+        return "default";
+    }
+    
+    private static String describeStep(StartupStep step) {
+        StringBuilder description = new StringBuilder(step.getName());
+        for (StartupStep.Tag tag : step.getTags()) {
+            description.append(' ').append(tag.getKey()).append('=').append(tag.getValue());
+        }
+        return description.toString();
+    }
+}
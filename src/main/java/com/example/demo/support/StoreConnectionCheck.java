@@ -0,0 +1,67 @@
+package com.example.demo.support;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Opens one connection to every store that app.startup.lazy-store does not defer before the application
+ * reports ready. Hibernate without JDBC metadata lookups, Hikari and the MongoDB driver all connect on
+ * first use, so without this a pod whose database is unreachable would still start and take traffic.
+ * The connections stay in the pools, so the first requests do not pay for them either.
+ */
+@Component
+public class StoreConnectionCheck implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StoreConnectionCheck.class);
+    
+    private final ObjectProvider<DataSource> dataSource;
+    private final ObjectProvider<MongoTemplate> mongoTemplate;
+    private final String lazyStore;
+    private final boolean enabled;
+    
+    public StoreConnectionCheck(ObjectProvider<DataSource> dataSource,
+                                ObjectProvider<MongoTemplate> mongoTemplate,
+                                @Value("${app.startup.lazy-store:none}") String lazyStore,
+                                @Value("${app.startup.check-store-connections:true}") boolean enabled) {
+        this.dataSource = dataSource;
+        this.mongoTemplate = mongoTemplate;
+        this.lazyStore = lazyStore;
+        this.enabled = enabled;
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        if (!"postgres".equals(lazyStore)) {
+            checkPostgres();
+        }
+        if (!"mongo".equals(lazyStore)) {
+            mongoTemplate.getObject().executeCommand(new Document("ping", 1));
+            logger.info("MongoDB connection check passed");
+        }
+    }
+    
+    private void checkPostgres() {
+        try (Connection connection = dataSource.getObject().getConnection()) {
+            if (!connection.isValid(5)) {
+                throw new IllegalStateException("PostgreSQL connection check failed: connection is not valid");
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("PostgreSQL connection check failed: " + e.getMessage(), e);
+        }
+        logger.info("PostgreSQL connection check passed");
+    }
+}
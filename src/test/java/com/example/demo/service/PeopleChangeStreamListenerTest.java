@@ -0,0 +1,137 @@
+package com.example.demo.service;
+
+import com.example.demo.support.PersonMongoChangedEvent;
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the listener against a mocked replica set: the people collection's change stream
+ * and the changeStreamResumeTokens collection are stubbed on the MongoTemplate.
+ */
+class PeopleChangeStreamListenerTest {
+    
+    private static final BsonDocument STORED_TOKEN = new BsonDocument("_data", new BsonString("8263A1"));
+    private static final BsonDocument CURRENT_TOKEN = new BsonDocument("_data", new BsonString("8263B2"));
+    
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final ChangeStreamIterable<Document> stream = mockStream();
+    private final MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = mockCursor();
+    
+    private PeopleChangeStreamListener listener;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        when(mongoTemplate.getCollection("people")).thenReturn(collection);
+        when(collection.watch()).thenReturn(stream);
+        when(stream.maxAwaitTime(anyLong(), any(TimeUnit.class))).thenReturn(stream);
+        when(stream.resumeAfter(any(BsonDocument.class))).thenReturn(stream);
+        
+        listener = new PeopleChangeStreamListener(mongoTemplate, eventPublisher, 0, 10);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        listener.stop();
+    }
+    
+    @Test
+    void resumesFromTheStoredToken() {
+        when(mongoTemplate.findById("people", Document.class, "changeStreamResumeTokens"))
+            .thenReturn(new Document("_id", "people").append("token", STORED_TOKEN.toJson()));
+        when(stream.cursor()).thenReturn(cursor);
+        
+        listener.start();
+        
+        verify(stream, timeout(1000)).resumeAfter(STORED_TOKEN);
+    }
+    
+    @Test
+    void startsFromNowWithoutAStoredToken() {
+        when(stream.cursor()).thenReturn(cursor);
+        
+        listener.start();
+        
+        verify(stream, timeout(1000)).cursor();
+        verify(stream, never()).resumeAfter(any(BsonDocument.class));
+    }
+    
+    @Test
+    void savesTheCursorResumeToken() {
+        when(stream.cursor()).thenReturn(cursor);
+        when(cursor.getResumeToken()).thenReturn(CURRENT_TOKEN);
+        
+        listener.start();
+        
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate, timeout(1000).atLeastOnce())
+            .upsert(any(Query.class), update.capture(), eq("changeStreamResumeTokens"));
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertThat(set.getString("token")).isEqualTo(CURRENT_TOKEN.toJson());
+    }
+    
+    @Test
+    void dropsTheTokenAndInvalidatesEverythingWhenHistoryIsLost() {
+        when(mongoTemplate.findById("people", Document.class, "changeStreamResumeTokens"))
+            .thenReturn(new Document("_id", "people").append("token", STORED_TOKEN.toJson()));
+        when(stream.cursor())
+            .thenThrow(historyLost())
+            .thenReturn(cursor);
+            
+        listener.start();
+        
+        verify(mongoTemplate, timeout(1000)).remove(any(Query.class), eq("changeStreamResumeTokens"));
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, timeout(1000).atLeastOnce()).publishEvent(event.capture());
+        assertThat(event.getAllValues())
+            .anySatisfy(published -> assertThat(((PersonMongoChangedEvent) published).getOperation()).isEqualTo("invalidate"));
+        verify(stream, timeout(1000).times(2)).cursor();
+    }
+    
+    private static MongoCommandException historyLost() {
+        BsonDocument response = new BsonDocument("ok", new BsonInt32(0))
+            .append("code", new BsonInt32(286))
+            .append("errmsg", new BsonString("Resume of change stream was not possible"));
+        return new MongoCommandException(response, new ServerAddress());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static ChangeStreamIterable<Document> mockStream() {
+        return mock(ChangeStreamIterable.class);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static MongoChangeStreamCursor<ChangeStreamDocument<Document>> mockCursor() {
+        return mock(MongoChangeStreamCursor.class);
+    }
+}
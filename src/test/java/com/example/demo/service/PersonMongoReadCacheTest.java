@@ -0,0 +1,103 @@
+package com.example.demo.service;
+
+import com.example.demo.support.PersonMongoChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersonMongoReadCacheTest {
+    
+    private final PersonMongoReadCache cache = new PersonMongoReadCache(true, 60_000);
+    private final AtomicInteger rolesLoads = new AtomicInteger();
+    private final AtomicInteger adminCountLoads = new AtomicInteger();
+    private final AtomicInteger userCountLoads = new AtomicInteger();
+    
+    @Test
+    void cachesUntilInvalidated() {
+        loadAll();
+        loadAll();
+        
+        assertLoads(1, 1, 1);
+    }
+    
+    @Test
+    void insertDropsRolesAndTheInsertedRoleCount() {
+        loadAll();
+        cache.onPersonChanged(new PersonMongoChangedEvent("insert", "1", "admin"));
+        loadAll();
+        
+        assertLoads(2, 2, 1);
+    }
+    
+    @Test
+    void insertWithoutRoleDropsEverything() {
+        loadAll();
+        cache.onPersonChanged(new PersonMongoChangedEvent("insert", "1", null));
+        loadAll();
+        
+        assertLoads(2, 2, 2);
+    }
+    
+    @Test
+    void updateDropsEverything() {
+        loadAll();
+        cache.onPersonChanged(new PersonMongoChangedEvent("update", "1", null));
+        loadAll();
+        
+        assertLoads(2, 2, 2);
+    }
+    
+    @Test
+    void deleteDropsEverything() {
+        loadAll();
+        cache.onPersonChanged(new PersonMongoChangedEvent("delete", "1", null));
+        loadAll();
+        
+        assertLoads(2, 2, 2);
+    }
+    
+    @Test
+    void doesNotStoreALoadThatOverlappedAnInvalidation() {
+        List<String> first = cache.getRoles(() -> {
+            rolesLoads.incrementAndGet();
+            cache.onPersonChanged(new PersonMongoChangedEvent("update", "1", null));
+            return List.of("stale");
+        });
+        List<String> second = cache.getRoles(() -> {
+            rolesLoads.incrementAndGet();
+            return List.of("fresh");
+        });
+        
+        assertThat(first).containsExactly("stale");
+        assertThat(second).containsExactly("fresh");
+        assertThat(rolesLoads).hasValue(2);
+    }
+    
+    @Test
+    void passesThroughWithoutTheChangeStream() {
+        PersonMongoReadCache passThrough = new PersonMongoReadCache(false, 60_000);
+        passThrough.getCountByRole("admin", () -> (long) adminCountLoads.incrementAndGet());
+        passThrough.getCountByRole("admin", () -> (long) adminCountLoads.incrementAndGet());
+        
+        assertThat(passThrough.isCaching()).isFalse();
+        assertThat(adminCountLoads).hasValue(2);
+    }
+    
+    private void loadAll() {
+        cache.getRoles(() -> {
+            rolesLoads.incrementAndGet();
+            return List.of("admin", "user");
+        });
+        cache.getCountByRole("admin", () -> (long) adminCountLoads.incrementAndGet());
+        cache.getCountByRole("user", () -> (long) userCountLoads.incrementAndGet());
+    }
+    
+    private void assertLoads(int roles, int adminCounts, int userCounts) {
+        assertThat(rolesLoads).hasValue(roles);
+        assertThat(adminCountLoads).hasValue(adminCounts);
+        assertThat(userCountLoads).hasValue(userCounts);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PersonSnapshotFormatTest {
+    
+    // Offset of lastId inside a row group header: magic, row count, first id
+    private static final int LAST_ID_OFFSET = 16;
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void roundTripsRows() throws IOException {
+        List<Person> rows = Arrays.asList(
+            person(1L, "Ada", "Engineer", "ada@example.com", LocalDateTime.of(2024, 2, 29, 13, 45, 7, 123_000_000)),
+            person(2L, "Grace", "Engineer", null, null),
+            person(50_000L, "Zoë Ñúñez", "Manager", "zoe@example.com", LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_999)),
+            person(50_001L, "", "Engineer", "", LocalDateTime.of(1900, 1, 1, 0, 0)));
+            
+        try (FileChannel channel = open("people.snap")) {
+            PersonSnapshotFormat.writeOrCheckFileHeader(channel);
+            PersonSnapshotFormat.writeRowGroup(channel, rows);
+            
+            PersonSnapshotFormat.RowGroup group = PersonSnapshotFormat.readRowGroup(channel, PersonSnapshotFormat.FILE_HEADER_SIZE);
+            
+            assertThat(group.getNextPosition()).isEqualTo(channel.size());
+            assertThat(group.getRows()).hasSize(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                Person expected = rows.get(i);
+                Person actual = group.getRows().get(i);
+                assertThat(actual.getId()).isEqualTo(expected.getId());
+                assertThat(actual.getName()).isEqualTo(expected.getName());
+                assertThat(actual.getRole()).isEqualTo(expected.getRole());
+                assertThat(actual.getEmail()).isEqualTo(expected.getEmail());
+                assertThat(actual.getCreatedAt()).isEqualTo(expected.getCreatedAt());
+            }
+        }
+    }
+    
+    @Test
+    void cutsOffATornTailGroupOnResume() throws IOException {
+        try (FileChannel channel = open("torn.snap")) {
+            PersonSnapshotFormat.writeOrCheckFileHeader(channel);
+            PersonSnapshotFormat.writeRowGroup(channel, people(1, 10));
+            PersonSnapshotFormat.writeRowGroup(channel, people(11, 20));
+            long validSize = channel.size();
+            PersonSnapshotFormat.writeRowGroup(channel, people(21, 30));
+            channel.truncate(channel.size() - 5);
+            
+            PersonSnapshotFormat.ScanResult scan = PersonSnapshotFormat.scanAndTruncate(channel);
+            
+            assertThat(scan.getRowGroups()).isEqualTo(2);
+            assertThat(scan.getRowCount()).isEqualTo(20);
+            assertThat(scan.getLastId()).isEqualTo(20);
+            assertThat(scan.getTruncatedBytes()).isPositive();
+            assertThat(channel.size()).isEqualTo(validSize);
+        }
+    }
+    
+    @Test
+    void cutsOffAGroupWhoseHeaderIsCorrupt() throws IOException {
+        try (FileChannel channel = open("corrupt.snap")) {
+            PersonSnapshotFormat.writeOrCheckFileHeader(channel);
+            long secondGroup = PersonSnapshotFormat.FILE_HEADER_SIZE + PersonSnapshotFormat.writeRowGroup(channel, people(1, 10));
+            PersonSnapshotFormat.writeRowGroup(channel, people(11, 20));
+            
+            // The payload is intact; only the recorded last id changes
+            ByteBuffer lastId = ByteBuffer.allocate(Long.BYTES).putLong(1_000L).flip();
+            channel.write(lastId, secondGroup + LAST_ID_OFFSET);
+            
+            assertThatThrownBy(() -> PersonSnapshotFormat.readRowGroup(channel, secondGroup))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Checksum mismatch");
+                
+            PersonSnapshotFormat.ScanResult scan = PersonSnapshotFormat.scanAndTruncate(channel);
+            
+            assertThat(scan.getRowGroups()).isEqualTo(1);
+            assertThat(scan.getLastId()).isEqualTo(10);
+            assertThat(channel.size()).isEqualTo(secondGroup);
+        }
+    }
+    
+    private FileChannel open(String fileName) throws IOException {
+        return FileChannel.open(directory.resolve(fileName),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+    
+    private static List<Person> people(long firstId, long lastId) {
+        List<Person> rows = new ArrayList<>();
+        for (long id = firstId; id <= lastId; id++) {
+            rows.add(person(id, "Person " + id, id % 2 == 0 ? "Engineer" : "Manager", "person" + id + "@example.com",
+                LocalDateTime.of(2020, 1, 1, 0, 0).plusSeconds(id)));
+        }
+        return rows;
+    }
+    
+    private static Person person(Long id, String name, String role, String email, LocalDateTime createdAt) {
+        Person person = new Person(name, role, email);
+        person.setId(id);
+        person.setCreatedAt(createdAt);
+        return person;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.support;
+
+import com.example.demo.controller.PersonController;
+import com.example.demo.controller.PersonMongoController;
+import com.example.demo.service.OutboxProjector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LazyStoreInitializerTest {
+    
+    @Test
+    void defersOnlyTheMongoSide() {
+        DefaultListableBeanFactory beanFactory = beanFactory("mongo");
+        
+        assertThat(isLazy(beanFactory, "mongoTemplate")).isTrue();
+        assertThat(isLazy(beanFactory, "personMongoController")).isTrue();
+        assertThat(isLazy(beanFactory, "transactionManager")).isFalse();
+        assertThat(isLazy(beanFactory, "personController")).isFalse();
+        assertThat(isLazy(beanFactory, "singleFlight")).isFalse();
+    }
+    
+    @Test
+    void defersOnlyThePostgresSide() {
+        DefaultListableBeanFactory beanFactory = beanFactory("postgres");
+        
+        assertThat(isLazy(beanFactory, "transactionManager")).isTrue();
+        assertThat(isLazy(beanFactory, "personController")).isTrue();
+        assertThat(isLazy(beanFactory, "mongoTemplate")).isFalse();
+        assertThat(isLazy(beanFactory, "singleFlight")).isFalse();
+    }
+    
+    @Test
+    void leavesExplicitlyEagerBeansAndTheDefaultAlone() {
+        DefaultListableBeanFactory postgresLazy = beanFactory("postgres");
+        DefaultListableBeanFactory noneLazy = beanFactory("none");
+        
+        assertThat(isLazy(postgresLazy, "outboxProjector")).isFalse();
+        assertThat(noneLazy.getBeanDefinitionNames())
+            .allSatisfy(name -> assertThat(isLazy(noneLazy, name)).isFalse());
+    }
+    
+    @Test
+    void rejectsUnknownStores() {
+        LazyStoreInitializer initializer = new LazyStoreInitializer();
+        
+        assertThatThrownBy(() -> initializer.setEnvironment(new MockEnvironment().withProperty("app.startup.lazy-store", "redis")))
+            .isInstanceOf(IllegalStateException.class);
+    }
+    
+    private static DefaultListableBeanFactory beanFactory(String lazyStore) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("mongoTemplate", new RootBeanDefinition(MongoTemplate.class));
+        beanFactory.registerBeanDefinition("transactionManager", new RootBeanDefinition(JpaTransactionManager.class));
+        beanFactory.registerBeanDefinition("personMongoController", new RootBeanDefinition(PersonMongoController.class));
+        beanFactory.registerBeanDefinition("personController", new RootBeanDefinition(PersonController.class));
+        beanFactory.registerBeanDefinition("singleFlight", new RootBeanDefinition(SingleFlight.class));
+        RootBeanDefinition outboxProjector = new RootBeanDefinition(OutboxProjector.class);
+        outboxProjector.setLazyInit(false);
+        beanFactory.registerBeanDefinition("outboxProjector", outboxProjector);
+        
+        LazyStoreInitializer initializer = new LazyStoreInitializer();
+        initializer.setEnvironment(new MockEnvironment().withProperty("app.startup.lazy-store", lazyStore));
+        initializer.postProcessBeanFactory(beanFactory);
+        return beanFactory;
+    }
+    
+    private static boolean isLazy(DefaultListableBeanFactory beanFactory, String beanName) {
+        return beanFactory.getBeanDefinition(beanName).isLazyInit();
+    }
+}